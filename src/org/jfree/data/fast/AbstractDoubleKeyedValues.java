@@ -0,0 +1,196 @@
+package org.jfree.data.fast;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.KeyedValues;
+import org.jfree.data.UnknownKeyException;
+
+/**
+ * Base class for immutable {@link KeyedValues} whose values are stored as
+ * primitive doubles. Keys are held in an array; subclasses supply the value
+ * storage. Values are only boxed when read through {@link #getValue(int)} or
+ * {@link #getValue(Comparable)}; callers that can work with primitives should
+ * use {@link #getDoubleValue(int)} instead.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AbstractDoubleKeyedValues implements KeyedValues {
+
+	private final Comparable[] keys;
+
+	/** Key to index lookup, built on first use. */
+	private volatile Map<Comparable, Integer> indexMap;
+
+	/**
+	 * Creates a new instance that takes ownership of the key array.
+	 *
+	 * @param keys the keys (not null, no null or duplicate entries).
+	 */
+	protected AbstractDoubleKeyedValues(Comparable[] keys) {
+		if (keys == null) {
+			throw new IllegalArgumentException("Null 'keys' argument.");
+		}
+		this.keys = keys;
+	}
+
+	/**
+	 * Returns the number of items.
+	 *
+	 * @return The item count.
+	 */
+	@Override
+	public int getItemCount() {
+		return this.keys.length;
+	}
+
+	/**
+	 * Returns the value at the given index without boxing. The result for a
+	 * null item is defined by the subclass.
+	 *
+	 * @param item the index.
+	 *
+	 * @return The value.
+	 */
+	public abstract double getDoubleValue(int item);
+
+	/**
+	 * Returns true if the value at the given index is null. The default
+	 * implementation returns false.
+	 *
+	 * @param item the index.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isNull(int item) {
+		return false;
+	}
+
+	/**
+	 * Returns the value at the given index, or null if {@link #isNull(int)}.
+	 *
+	 * @param item the index.
+	 *
+	 * @return The value (possibly null).
+	 */
+	@Override
+	public Number getValue(int item) {
+		return isNull(item) ? null : Double.valueOf(getDoubleValue(item));
+	}
+
+	/**
+	 * Returns the key at the given index.
+	 *
+	 * @param index the index.
+	 *
+	 * @return The key.
+	 */
+	@Override
+	public Comparable getKey(int index) {
+		return this.keys[index];
+	}
+
+	/**
+	 * Returns the index of the given key, or -1 if the key is not present.
+	 *
+	 * @param key the key (not null).
+	 *
+	 * @return The index, or -1.
+	 */
+	@Override
+	public int getIndex(Comparable key) {
+		if (key == null) {
+			throw new IllegalArgumentException("Null 'key' argument.");
+		}
+		Integer index = indexMap().get(key);
+		return index == null ? -1 : index.intValue();
+	}
+
+	/**
+	 * Returns an unmodifiable list of the keys, in order.
+	 *
+	 * @return The keys.
+	 */
+	@Override
+	public List getKeys() {
+		return Collections.unmodifiableList(Arrays.asList(this.keys));
+	}
+
+	/**
+	 * Returns the value for the given key.
+	 *
+	 * @param key the key (not null).
+	 *
+	 * @return The value.
+	 *
+	 * @throws UnknownKeyException if the key is not present.
+	 */
+	@Override
+	public Number getValue(Comparable key) {
+		int index = getIndex(key);
+		if (index < 0) {
+			throw new UnknownKeyException("Key not found: " + key);
+		}
+		return getValue(index);
+	}
+
+	/**
+	 * Tests this instance for equality with an arbitrary object. As with
+	 * {@link org.jfree.data.DefaultKeyedValues}, any {@link KeyedValues} with
+	 * equal keys and values in the same order is equal.
+	 *
+	 * @param obj the object (null permitted).
+	 *
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof KeyedValues)) {
+			return false;
+		}
+		KeyedValues that = (KeyedValues) obj;
+		int count = getItemCount();
+		if (count != that.getItemCount()) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (!getKey(i).equals(that.getKey(i))) {
+				return false;
+			}
+			Number v1 = getValue(i);
+			Number v2 = that.getValue(i);
+			if (v1 == null ? v2 != null : !v1.equals(v2)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash code computed from the keys, consistent with
+	 * {@link org.jfree.data.DefaultKeyedValues#hashCode()}.
+	 *
+	 * @return The hash code.
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.asList(this.keys).hashCode();
+	}
+
+	private Map<Comparable, Integer> indexMap() {
+		Map<Comparable, Integer> map = this.indexMap;
+		if (map == null) {
+			map = new HashMap<Comparable, Integer>(this.keys.length * 2);
+			for (int i = 0; i < this.keys.length; i++) {
+				map.put(this.keys[i], Integer.valueOf(i));
+			}
+			this.indexMap = map;
+		}
+		return map;
+	}
+}
@@ -0,0 +1,255 @@
+package org.jfree.data.fast;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Values2D;
+
+/**
+ * Evaluates one or more {@link DatasetOperation}s over many small, independent
+ * datasets on a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * Datasets are grouped into batches so that the scheduling cost is paid once
+ * per batch rather than once per dataset; idle workers steal the remaining
+ * halves of larger ranges. Results are returned in input order, and a
+ * runtime exception thrown for one dataset is recorded in its
+ * {@link BatchResult} without affecting the rest of the batch.
+ * <p>
+ * Several operations over the same datasets, for example the totals and the
+ * cumulative percentages needed by one report, can be run in a single pass
+ * with {@link #evaluateAll(Collection, List)}: each batch task applies every
+ * operation to a dataset before moving to the next one.
+ * <p>
+ * Only {@link RuntimeException}s are isolated. An {@link Error} (for example
+ * {@link OutOfMemoryError}, {@link StackOverflowError} or an
+ * {@link AssertionError} from an operation) is deliberately not caught: it
+ * propagates out of {@link #evaluate(Collection, DatasetOperation)} and the
+ * whole batch fails, since the JVM state may no longer be trustworthy.
+ */
+public class BatchEvaluator {
+
+	/** Target number of batches per worker when the batch size is automatic. */
+	private static final int BATCHES_PER_WORKER = 8;
+
+	private final ForkJoinPool pool;
+
+	private final int batchSize;
+
+	/**
+	 * Creates an evaluator on the common pool with automatic batch sizing.
+	 */
+	public BatchEvaluator() {
+		this(ForkJoinPool.commonPool(), 0);
+	}
+
+	/**
+	 * Creates an evaluator.
+	 *
+	 * @param pool      the pool to run on (not null).
+	 * @param batchSize the number of datasets evaluated per task, or 0 to
+	 *                  derive it from the input size and pool parallelism.
+	 */
+	public BatchEvaluator(ForkJoinPool pool, int batchSize) {
+		if (pool == null) {
+			throw new IllegalArgumentException("Null 'pool' argument.");
+		}
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("Negative 'batchSize' argument: " + batchSize);
+		}
+		this.pool = pool;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Applies the operation to every dataset and returns the results in the
+	 * same order as the datasets.
+	 *
+	 * @param datasets  the datasets (not null).
+	 * @param operation the operation (not null).
+	 *
+	 * @return One result per dataset.
+	 */
+	public <T, R> List<BatchResult<R>> evaluate(Collection<? extends T> datasets,
+			final DatasetOperation<? super T, ? extends R> operation) {
+		if (operation == null) {
+			throw new IllegalArgumentException("Null 'operation' argument.");
+		}
+		BatchResult<?>[] results = run(datasets, Collections.singletonList(operation));
+		List<BatchResult<R>> list = new ArrayList<BatchResult<R>>(results.length);
+		for (BatchResult<?> result : results) {
+			list.add(BatchEvaluator.<R>cast(result));
+		}
+		return list;
+	}
+
+	/**
+	 * Applies every operation to every dataset in one pass over the datasets.
+	 * The result for dataset {@code i} is a list with one result per
+	 * operation, in the order of the operations.
+	 *
+	 * @param datasets   the datasets (not null).
+	 * @param operations the operations (not null, no null entries).
+	 *
+	 * @return One list of results per dataset.
+	 */
+	public <T, R> List<List<BatchResult<R>>> evaluateAll(Collection<? extends T> datasets,
+			List<? extends DatasetOperation<? super T, ? extends R>> operations) {
+		if (operations == null) {
+			throw new IllegalArgumentException("Null 'operations' argument.");
+		}
+		if (operations.contains(null)) {
+			throw new IllegalArgumentException("Null entry in 'operations' argument.");
+		}
+		BatchResult<?>[] results = run(datasets, operations);
+		int count = operations.size();
+		int datasetCount = count == 0 ? datasets.size() : results.length / count;
+		List<List<BatchResult<R>>> list = new ArrayList<List<BatchResult<R>>>(datasetCount);
+		for (int i = 0; i < datasetCount; i++) {
+			List<BatchResult<R>> row = new ArrayList<BatchResult<R>>(count);
+			for (int j = 0; j < count; j++) {
+				row.add(BatchEvaluator.<R>cast(results[i * count + j]));
+			}
+			list.add(row);
+		}
+		return list;
+	}
+
+	/**
+	 * Runs the operations on the pool and returns the results in dataset
+	 * then operation order.
+	 */
+	private <T, R> BatchResult<?>[] run(Collection<? extends T> datasets,
+			List<? extends DatasetOperation<? super T, ? extends R>> operations) {
+		if (datasets == null) {
+			throw new IllegalArgumentException("Null 'datasets' argument.");
+		}
+		Object[] inputs = datasets.toArray();
+		BatchResult<?>[] results = new BatchResult<?>[inputs.length * operations.size()];
+		if (results.length > 0) {
+			int size = this.batchSize;
+			if (size == 0) {
+				size = Math.max(1, inputs.length / (this.pool.getParallelism() * BATCHES_PER_WORKER));
+			}
+			List<DatasetOperation<? super T, ? extends R>> copy = new ArrayList<DatasetOperation<? super T, ? extends R>>(
+					operations);
+			this.pool.invoke(new EvaluateTask<T, R>(inputs, results, copy, 0, inputs.length, size));
+		}
+		return results;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <R> BatchResult<R> cast(BatchResult<?> result) {
+		return (BatchResult<R>) result;
+	}
+
+	/**
+	 * Returns an operation that computes
+	 * {@link DataUtilities#calculateRowTotal(Values2D, int)}.
+	 *
+	 * @param row the row index.
+	 *
+	 * @return The operation.
+	 */
+	public static DatasetOperation<Values2D, Double> rowTotal(final int row) {
+		return new DatasetOperation<Values2D, Double>() {
+			@Override
+			public Double apply(Values2D data) {
+				return Double.valueOf(DataUtilities.calculateRowTotal(data, row));
+			}
+		};
+	}
+
+	/**
+	 * Returns an operation that computes
+	 * {@link DataUtilities#calculateColumnTotal(Values2D, int)}.
+	 *
+	 * @param column the column index.
+	 *
+	 * @return The operation.
+	 */
+	public static DatasetOperation<Values2D, Double> columnTotal(final int column) {
+		return new DatasetOperation<Values2D, Double>() {
+			@Override
+			public Double apply(Values2D data) {
+				return Double.valueOf(DataUtilities.calculateColumnTotal(data, column));
+			}
+		};
+	}
+
+	/**
+	 * Returns an operation that computes
+	 * {@link DataUtilities#getCumulativePercentages(KeyedValues)}.
+	 *
+	 * @return The operation.
+	 */
+	public static DatasetOperation<KeyedValues, KeyedValues> cumulativePercentages() {
+		return new DatasetOperation<KeyedValues, KeyedValues>() {
+			@Override
+			public KeyedValues apply(KeyedValues data) {
+				return DataUtilities.getCumulativePercentages(data);
+			}
+		};
+	}
+
+	/**
+	 * Splits the index range in half until it fits in one batch, then
+	 * applies every operation to each dataset of the batch in turn.
+	 */
+	private static final class EvaluateTask<T, R> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] inputs;
+
+		private final BatchResult<?>[] results;
+
+		private final List<DatasetOperation<? super T, ? extends R>> operations;
+
+		private final int from;
+
+		private final int to;
+
+		private final int batchSize;
+
+		EvaluateTask(Object[] inputs, BatchResult<?>[] results,
+				List<DatasetOperation<? super T, ? extends R>> operations, int from, int to, int batchSize) {
+			this.inputs = inputs;
+			this.results = results;
+			this.operations = operations;
+			this.from = from;
+			this.to = to;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.batchSize) {
+				int count = this.operations.size();
+				for (int i = this.from; i < this.to; i++) {
+					for (int j = 0; j < count; j++) {
+						this.results[i * count + j] = evaluateOne(this.operations.get(j), this.inputs[i]);
+					}
+				}
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new EvaluateTask<T, R>(this.inputs, this.results, this.operations, this.from, mid, this.batchSize),
+					new EvaluateTask<T, R>(this.inputs, this.results, this.operations, mid, this.to, this.batchSize));
+		}
+
+		@SuppressWarnings("unchecked")
+		private BatchResult<R> evaluateOne(DatasetOperation<? super T, ? extends R> operation, Object input) {
+			try {
+				return BatchResult.<R>success(operation.apply((T) input));
+			} catch (RuntimeException e) {
+				return BatchResult.<R>failure(e);
+			}
+		}
+	}
+}
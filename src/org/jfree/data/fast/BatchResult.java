@@ -0,0 +1,80 @@
+package org.jfree.data.fast;
+
+/**
+ * The outcome of one {@link DatasetOperation} in a batch: either a value or
+ * the exception the operation threw.
+ *
+ * @param <R> the result type.
+ */
+public final class BatchResult<R> {
+
+	private final R value;
+
+	private final RuntimeException failure;
+
+	private BatchResult(R value, RuntimeException failure) {
+		this.value = value;
+		this.failure = failure;
+	}
+
+	/**
+	 * Creates a successful result.
+	 *
+	 * @param value the value (null permitted).
+	 *
+	 * @return The result.
+	 */
+	public static <R> BatchResult<R> success(R value) {
+		return new BatchResult<R>(value, null);
+	}
+
+	/**
+	 * Creates a failed result.
+	 *
+	 * @param failure the exception (not null).
+	 *
+	 * @return The result.
+	 */
+	public static <R> BatchResult<R> failure(RuntimeException failure) {
+		if (failure == null) {
+			throw new IllegalArgumentException("Null 'failure' argument.");
+		}
+		return new BatchResult<R>(null, failure);
+	}
+
+	/**
+	 * Returns true if the operation completed normally.
+	 *
+	 * @return A boolean.
+	 */
+	public boolean isSuccess() {
+		return this.failure == null;
+	}
+
+	/**
+	 * Returns the value, rethrowing the captured exception if the operation
+	 * failed.
+	 *
+	 * @return The value.
+	 */
+	public R getValue() {
+		if (this.failure != null) {
+			throw this.failure;
+		}
+		return this.value;
+	}
+
+	/**
+	 * Returns the exception thrown by the operation, or null on success.
+	 *
+	 * @return The exception.
+	 */
+	public RuntimeException getFailure() {
+		return this.failure;
+	}
+
+	@Override
+	public String toString() {
+		return isSuccess() ? "BatchResult[" + this.value + "]" : "BatchResult[failed: " + this.failure + "]";
+	}
+}
@@ -0,0 +1,92 @@
+package org.jfree.data.fast;
+
+import java.nio.DoubleBuffer;
+import java.util.BitSet;
+
+/**
+ * An immutable {@link org.jfree.data.KeyedValues} whose values are read
+ * directly from a {@link DoubleBuffer}, typically a view of a buffer decoded
+ * by {@link DataCodec}. The values are not copied, so the underlying buffer
+ * must not be modified while this instance is in use.
+ * <p>
+ * Null values are recorded in a separate bit set; {@link #getValue(int)}
+ * returns null for them and {@link #getDoubleValue(int)} returns whatever the
+ * buffer holds at that index (NaN when written by {@link DataCodec}).
+ */
+public class BufferKeyedValues extends AbstractDoubleKeyedValues {
+
+	private final DoubleBuffer values;
+
+	/** The indices of null values, or null if there are none. */
+	private final BitSet nulls;
+
+	/**
+	 * Creates a new instance over the given keys and the values from index 0
+	 * of the buffer, with no null values.
+	 *
+	 * @param keys   the keys (not null, no null or duplicate entries).
+	 * @param values the values (not null, at least as many as keys).
+	 */
+	@SuppressWarnings("rawtypes")
+	public BufferKeyedValues(Comparable[] keys, DoubleBuffer values) {
+		this(keys, values, null);
+	}
+
+	/**
+	 * Creates a new instance over the given keys and the values from index 0
+	 * of the buffer. The instance takes ownership of the bit set, which must
+	 * not be modified afterwards.
+	 *
+	 * @param keys   the keys (not null, no null or duplicate entries).
+	 * @param values the values (not null, at least as many as keys).
+	 * @param nulls  the indices of null values ({@code null} permitted for
+	 *               none).
+	 */
+	@SuppressWarnings("rawtypes")
+	public BufferKeyedValues(Comparable[] keys, DoubleBuffer values, BitSet nulls) {
+		super(keys);
+		if (values == null) {
+			throw new IllegalArgumentException("Null 'values' argument.");
+		}
+		if (values.limit() < keys.length) {
+			throw new IllegalArgumentException("Buffer holds fewer values than keys.");
+		}
+		if (nulls != null && nulls.length() > keys.length) {
+			throw new IllegalArgumentException("Null index beyond the last key: " + (nulls.length() - 1));
+		}
+		this.values = values;
+		this.nulls = nulls == null || nulls.isEmpty() ? null : nulls;
+	}
+
+	/**
+	 * Returns the value at the given index without boxing.
+	 *
+	 * @param item the index.
+	 *
+	 * @return The value.
+	 */
+	@Override
+	public double getDoubleValue(int item) {
+		checkIndex(item);
+		return this.values.get(item);
+	}
+
+	/**
+	 * Returns true if the value at the given index is null.
+	 *
+	 * @param item the index.
+	 *
+	 * @return A boolean.
+	 */
+	@Override
+	public boolean isNull(int item) {
+		checkIndex(item);
+		return this.nulls != null && this.nulls.get(item);
+	}
+
+	private void checkIndex(int item) {
+		if (item < 0 || item >= getItemCount()) {
+			throw new IndexOutOfBoundsException("Index: " + item + ", size: " + getItemCount());
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package org.jfree.data.fast;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Range;
+
+/**
+ * Compact binary encoding of {@link Range} and {@link KeyedValues} for
+ * transfer between processes, as a smaller and cheaper alternative to Java
+ * serialization.
+ * <p>
+ * All numbers are written in the byte order of the buffer passed in (big
+ * endian unless changed), so the reader must use the same order.
+ * <p>
+ * A range is a fixed 16-byte record: the lower bound then the upper bound, as
+ * doubles.
+ * <p>
+ * A KeyedValues block is laid out as follows, with offsets relative to the
+ * start of the block:
+ * <ul>
+ * <li>int item count;</li>
+ * <li>int length in bytes of the key block;</li>
+ * <li>key block: each key in item order as a one-byte type tag followed by
+ * the key (String as a varint UTF-8 length and the bytes, Integer as an int,
+ * Long as a long, Double as a double); keys are written once and referred to
+ * by position;</li>
+ * <li>null bitmap: (count + 7) / 8 bytes, bit (i % 8) of byte (i / 8) set if
+ * item i is null;</li>
+ * <li>zero padding up to a multiple of 8 bytes;</li>
+ * <li>value block: one double per item, null values written as NaN.</li>
+ * </ul>
+ * {@link #decodeKeyedValues(ByteBuffer)} returns a view over the value block
+ * without copying it.
+ */
+@SuppressWarnings("rawtypes")
+public final class DataCodec {
+
+	/** The size in bytes of an encoded range. */
+	public static final int RANGE_BYTES = 16;
+
+	private static final byte STRING_KEY = 0;
+
+	private static final byte INTEGER_KEY = 1;
+
+	private static final byte LONG_KEY = 2;
+
+	private static final byte DOUBLE_KEY = 3;
+
+	private DataCodec() {
+	}
+
+	// ========== Range ==========
+
+	/**
+	 * Writes a range at the buffer's position and advances it by
+	 * {@link #RANGE_BYTES}.
+	 *
+	 * @param range  the range (not null).
+	 * @param buffer the buffer (not null).
+	 */
+	public static void encodeRange(Range range, ByteBuffer buffer) {
+		if (range == null) {
+			throw new IllegalArgumentException("Null 'range' argument.");
+		}
+		buffer.putDouble(range.getLowerBound());
+		buffer.putDouble(range.getUpperBound());
+	}
+
+	/**
+	 * Reads a range at the buffer's position and advances it by
+	 * {@link #RANGE_BYTES}.
+	 *
+	 * @param buffer the buffer (not null).
+	 *
+	 * @return The range.
+	 */
+	public static Range decodeRange(ByteBuffer buffer) {
+		double lower = buffer.getDouble();
+		double upper = buffer.getDouble();
+		return new Range(lower, upper);
+	}
+
+	// ========== KeyedValues ==========
+
+	/**
+	 * Returns the number of bytes {@link #encodeKeyedValues(KeyedValues,
+	 * ByteBuffer)} writes for the given data.
+	 *
+	 * @param data the data (not null).
+	 *
+	 * @return The encoded length in bytes.
+	 */
+	public static int getEncodedLength(KeyedValues data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		int count = data.getItemCount();
+		int keyBytes = 0;
+		for (int i = 0; i < count; i++) {
+			keyBytes += getEncodedKeyLength(data.getKey(i));
+		}
+		return align(8 + keyBytes + bitmapLength(count)) + count * 8;
+	}
+
+	/**
+	 * Encodes the data into a new buffer, flipped and ready for reading.
+	 *
+	 * @param data the data (not null).
+	 *
+	 * @return The buffer.
+	 */
+	public static ByteBuffer encodeKeyedValues(KeyedValues data) {
+		ByteBuffer buffer = ByteBuffer.allocate(getEncodedLength(data));
+		encodeKeyedValues(data, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Writes the data at the buffer's position and advances it past the end
+	 * of the block.
+	 *
+	 * @param data   the data (not null).
+	 * @param buffer the buffer (not null).
+	 *
+	 * @throws IllegalArgumentException if a key is not a String, Integer, Long
+	 *                                  or Double.
+	 */
+	public static void encodeKeyedValues(KeyedValues data, ByteBuffer buffer) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		int start = buffer.position();
+		int count = data.getItemCount();
+		buffer.putInt(count);
+		buffer.putInt(0); // key block length, patched below
+		for (int i = 0; i < count; i++) {
+			encodeKey(data.getKey(i), buffer);
+		}
+		buffer.putInt(start + 4, buffer.position() - start - 8);
+		int bitmapStart = buffer.position();
+		// the bitmap and padding are zeroed here, null bits are set below
+		while (buffer.position() - bitmapStart < bitmapLength(count) || ((buffer.position() - start) & 7) != 0) {
+			buffer.put((byte) 0);
+		}
+		if (data instanceof AbstractDoubleKeyedValues) {
+			AbstractDoubleKeyedValues source = (AbstractDoubleKeyedValues) data;
+			for (int i = 0; i < count; i++) {
+				if (source.isNull(i)) {
+					setNullBit(buffer, bitmapStart, i);
+					buffer.putDouble(Double.NaN);
+				} else {
+					buffer.putDouble(source.getDoubleValue(i));
+				}
+			}
+		} else {
+			for (int i = 0; i < count; i++) {
+				Number n = data.getValue(i);
+				if (n == null) {
+					setNullBit(buffer, bitmapStart, i);
+					buffer.putDouble(Double.NaN);
+				} else {
+					buffer.putDouble(n.doubleValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a KeyedValues block at the buffer's position and advances it past
+	 * the end of the block. Keys are decoded eagerly; the values stay in the
+	 * buffer and are read through a {@link DoubleBuffer} view.
+	 *
+	 * @param buffer the buffer (not null).
+	 *
+	 * @return The decoded data, backed by the buffer.
+	 *
+	 * @throws IllegalArgumentException if the block is truncated or corrupt.
+	 */
+	public static BufferKeyedValues decodeKeyedValues(ByteBuffer buffer) {
+		int start = buffer.position();
+		if (buffer.remaining() < 8) {
+			throw new IllegalArgumentException("Corrupt KeyedValues header: " + buffer.remaining() + " bytes remaining");
+		}
+		int count = buffer.getInt();
+		int keyBlockLength = buffer.getInt();
+		// check the whole block fits before allocating or decoding anything
+		if (count < 0 || keyBlockLength < 0 || ((8L + keyBlockLength + bitmapLength(count) + 7) & ~7L)
+				+ 8L * count > buffer.limit() - start) {
+			throw new IllegalArgumentException("Corrupt KeyedValues header: " + count + ", " + keyBlockLength);
+		}
+		ByteBuffer keyBlock = buffer.duplicate().order(buffer.order());
+		keyBlock.limit(start + 8 + keyBlockLength);
+		Comparable[] keys = new Comparable[count];
+		try {
+			for (int i = 0; i < count; i++) {
+				keys[i] = decodeKey(keyBlock);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Corrupt KeyedValues key block.");
+		}
+		if (keyBlock.hasRemaining()) {
+			throw new IllegalArgumentException("Corrupt KeyedValues key block.");
+		}
+		buffer.position(keyBlock.limit());
+		int bitmapLength = bitmapLength(count);
+		ByteBuffer bitmap = buffer.duplicate();
+		bitmap.limit(bitmap.position() + bitmapLength);
+		BitSet nulls = BitSet.valueOf(bitmap);
+		if (nulls.length() > count) {
+			throw new IllegalArgumentException("Corrupt KeyedValues null bitmap.");
+		}
+		int valuesStart = start + align(8 + keyBlockLength + bitmapLength);
+		buffer.position(valuesStart);
+		ByteBuffer slice = buffer.slice().order(buffer.order());
+		slice.limit(count * 8);
+		DoubleBuffer values = slice.asDoubleBuffer();
+		buffer.position(valuesStart + count * 8);
+		return new BufferKeyedValues(keys, values, nulls);
+	}
+
+	private static int getEncodedKeyLength(Comparable key) {
+		if (key instanceof String) {
+			int length = utf8Length((String) key);
+			return 1 + varintLength(length) + length;
+		} else if (key instanceof Integer) {
+			return 5;
+		} else if (key instanceof Long || key instanceof Double) {
+			return 9;
+		}
+		throw unsupportedKey(key);
+	}
+
+	private static void encodeKey(Comparable key, ByteBuffer buffer) {
+		if (key instanceof String) {
+			byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+			buffer.put(STRING_KEY);
+			putVarint(bytes.length, buffer);
+			buffer.put(bytes);
+		} else if (key instanceof Integer) {
+			buffer.put(INTEGER_KEY);
+			buffer.putInt(((Integer) key).intValue());
+		} else if (key instanceof Long) {
+			buffer.put(LONG_KEY);
+			buffer.putLong(((Long) key).longValue());
+		} else if (key instanceof Double) {
+			buffer.put(DOUBLE_KEY);
+			buffer.putDouble(((Double) key).doubleValue());
+		} else {
+			throw unsupportedKey(key);
+		}
+	}
+
+	private static Comparable decodeKey(ByteBuffer buffer) {
+		byte tag = buffer.get();
+		switch (tag) {
+		case STRING_KEY:
+			int length = getVarint(buffer);
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IllegalArgumentException("Corrupt key length: " + length);
+			}
+			String key;
+			if (buffer.hasArray()) {
+				key = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+						StandardCharsets.UTF_8);
+				buffer.position(buffer.position() + length);
+			} else {
+				byte[] bytes = new byte[length];
+				buffer.get(bytes);
+				key = new String(bytes, StandardCharsets.UTF_8);
+			}
+			return key;
+		case INTEGER_KEY:
+			return Integer.valueOf(buffer.getInt());
+		case LONG_KEY:
+			return Long.valueOf(buffer.getLong());
+		case DOUBLE_KEY:
+			return Double.valueOf(buffer.getDouble());
+		default:
+			throw new IllegalArgumentException("Unknown key tag: " + tag);
+		}
+	}
+
+	private static IllegalArgumentException unsupportedKey(Comparable key) {
+		return new IllegalArgumentException(
+				"Unsupported key type: " + (key == null ? "null" : key.getClass().getName()));
+	}
+
+	private static int utf8Length(String s) {
+		int length = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				length += 1;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length += 1; // unpaired surrogates are encoded as '?'
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	/** Writes a non-negative int in 7-bit groups, low group first. */
+	private static void putVarint(int value, ByteBuffer buffer) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static int getVarint(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Corrupt varint.");
+	}
+
+	private static int varintLength(int value) {
+		int length = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+
+	private static int bitmapLength(int count) {
+		return (count + 7) >>> 3;
+	}
+
+	private static void setNullBit(ByteBuffer buffer, int bitmapStart, int item) {
+		int index = bitmapStart + (item >>> 3);
+		buffer.put(index, (byte) (buffer.get(index) | (1 << (item & 7))));
+	}
+
+	private static int align(int length) {
+		return (length + 7) & ~7;
+	}
+}
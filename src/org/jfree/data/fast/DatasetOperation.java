@@ -0,0 +1,21 @@
+package org.jfree.data.fast;
+
+/**
+ * A computation applied to one dataset by a {@link BatchEvaluator}.
+ *
+ * @param <T> the dataset type.
+ * @param <R> the result type.
+ */
+public interface DatasetOperation<T, R> {
+
+	/**
+	 * Computes the result for one dataset. Runtime exceptions are captured in
+	 * the corresponding {@link BatchResult} and do not affect other datasets.
+	 * An {@link Error} is not captured and fails the whole batch.
+	 *
+	 * @param data the dataset.
+	 *
+	 * @return The result.
+	 */
+	R apply(T data);
+}
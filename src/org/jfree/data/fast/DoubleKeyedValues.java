@@ -0,0 +1,41 @@
+package org.jfree.data.fast;
+
+/**
+ * An immutable {@link org.jfree.data.KeyedValues} backed by a key array and a
+ * primitive {@code double[]}.
+ */
+public class DoubleKeyedValues extends AbstractDoubleKeyedValues {
+
+	private final double[] values;
+
+	/**
+	 * Creates a new instance that takes ownership of the given arrays. The
+	 * arrays must not be modified afterwards.
+	 *
+	 * @param keys   the keys (not null, no null or duplicate entries).
+	 * @param values the values (not null, same length as keys).
+	 */
+	@SuppressWarnings("rawtypes")
+	public DoubleKeyedValues(Comparable[] keys, double[] values) {
+		super(keys);
+		if (values == null) {
+			throw new IllegalArgumentException("Null 'values' argument.");
+		}
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("Keys and values must have the same length.");
+		}
+		this.values = values;
+	}
+
+	/**
+	 * Returns the value at the given index without boxing.
+	 *
+	 * @param item the index.
+	 *
+	 * @return The value.
+	 */
+	@Override
+	public double getDoubleValue(int item) {
+		return this.values[item];
+	}
+}
@@ -0,0 +1,276 @@
+package org.jfree.data.fast;
+
+import org.jfree.data.Values2D;
+
+/**
+ * A two-dimensional Fenwick (binary indexed) tree over a fixed grid of
+ * doubles. Both point updates and rectangle sums take
+ * O(log rows * log columns), which suits data that changes between queries.
+ * For data that does not change, {@link SummedAreaTable} answers queries in
+ * O(1).
+ * <p>
+ * Sums are derived by subtracting prefix sums, where a single NaN or infinite
+ * cell would poison every sum, so cells must be finite: the constructor,
+ * {@link #add(int, int, double)} and {@link #setValue(int, int, double)}
+ * reject NaN and infinite values. While the magnitudes of the cells may add
+ * up to more than a quarter of {@link Double#MAX_VALUE}, prefix sums could
+ * overflow; sums are then computed directly from the cells in row-major
+ * order, which costs O(rows * columns) per query, and the tree is rebuilt
+ * once the magnitudes are small enough again.
+ */
+public class FenwickTree2D {
+
+	private final int rowCount;
+
+	private final int columnCount;
+
+	/** One-based tree, (rows+1) x (cols+1). */
+	private final double[] tree;
+
+	/** Current cell values, kept so that {@link #setValue} can compute a delta. */
+	private final double[] cells;
+
+	/** An upper bound on the sum of the magnitudes of the cells. */
+	private double magnitude;
+
+	/** True if the tree no longer matches the cells and must be rebuilt. */
+	private boolean stale;
+
+	/**
+	 * Creates a tree of the given size with all cells zero.
+	 *
+	 * @param rowCount    the number of rows (&gt;= 0).
+	 * @param columnCount the number of columns (&gt;= 0).
+	 */
+	public FenwickTree2D(int rowCount, int columnCount) {
+		if (rowCount < 0 || columnCount < 0) {
+			throw new IllegalArgumentException("Negative size: " + rowCount + " x " + columnCount);
+		}
+		this.rowCount = rowCount;
+		this.columnCount = columnCount;
+		this.tree = new double[(rowCount + 1) * (columnCount + 1)];
+		this.cells = new double[rowCount * columnCount];
+	}
+
+	/**
+	 * Creates a tree from the current contents of the given data. Null cells
+	 * count as zero.
+	 *
+	 * @param data the data (not null).
+	 *
+	 * @throws IllegalArgumentException if a cell is NaN or infinite.
+	 */
+	public FenwickTree2D(Values2D data) {
+		this(checkNotNull(data).getRowCount(), data.getColumnCount());
+		for (int r = 0; r < this.rowCount; r++) {
+			for (int c = 0; c < this.columnCount; c++) {
+				Number n = data.getValue(r, c);
+				this.cells[r * this.columnCount + c] = n == null ? 0.0 : checkFinite(n.doubleValue());
+			}
+		}
+		rebuild();
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @return The row count.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 *
+	 * @return The column count.
+	 */
+	public int getColumnCount() {
+		return this.columnCount;
+	}
+
+	/**
+	 * Returns the current value of a cell.
+	 *
+	 * @param row    the row index.
+	 * @param column the column index.
+	 *
+	 * @return The value.
+	 */
+	public double getValue(int row, int column) {
+		checkCell(row, column);
+		return this.cells[row * this.columnCount + column];
+	}
+
+	/**
+	 * Adds a delta to a cell.
+	 *
+	 * @param row    the row index.
+	 * @param column the column index.
+	 * @param delta  the amount to add.
+	 *
+	 * @throws IllegalArgumentException if the delta or the new value of the
+	 *                                  cell is NaN or infinite.
+	 */
+	public void add(int row, int column, double delta) {
+		checkFinite(delta);
+		setValue(row, column, getValue(row, column) + delta);
+	}
+
+	/**
+	 * Sets the value of a cell.
+	 *
+	 * @param row    the row index.
+	 * @param column the column index.
+	 * @param value  the new value.
+	 *
+	 * @throws IllegalArgumentException if the value is NaN or infinite.
+	 */
+	public void setValue(int row, int column, double value) {
+		checkCell(row, column);
+		checkFinite(value);
+		int index = row * this.columnCount + column;
+		double delta = value - this.cells[index];
+		this.cells[index] = value;
+		if (this.stale) {
+			return;
+		}
+		this.magnitude += Math.abs(value);
+		if (this.magnitude > SummedAreaTable.DIRECT_SUM_LIMIT) {
+			this.stale = true;
+			return;
+		}
+		int stride = this.columnCount + 1;
+		for (int r = row + 1; r <= this.rowCount; r += r & -r) {
+			for (int c = column + 1; c <= this.columnCount; c += c & -c) {
+				this.tree[r * stride + c] += delta;
+			}
+		}
+	}
+
+	/**
+	 * Returns the sum of the cells in the rectangle spanning the given rows and
+	 * columns, all bounds inclusive.
+	 *
+	 * @param firstRow    the first row.
+	 * @param firstColumn the first column.
+	 * @param lastRow     the last row (&gt;= firstRow).
+	 * @param lastColumn  the last column (&gt;= firstColumn).
+	 *
+	 * @return The sum.
+	 *
+	 * @throws IndexOutOfBoundsException if the rectangle is not inside the
+	 *                                   tree.
+	 */
+	public double getSum(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		SummedAreaTable.checkRange(firstRow, lastRow, this.rowCount, "row");
+		SummedAreaTable.checkRange(firstColumn, lastColumn, this.columnCount, "column");
+		if (this.stale) {
+			rebuild();
+			if (this.stale) {
+				return SummedAreaTable.directSum(this.cells, this.columnCount, firstRow, firstColumn, lastRow,
+						lastColumn);
+			}
+		}
+		return prefixSum(lastRow + 1, lastColumn + 1) - prefixSum(firstRow, lastColumn + 1)
+				- prefixSum(lastRow + 1, firstColumn) + prefixSum(firstRow, firstColumn);
+	}
+
+	/**
+	 * Returns the total of a row. An empty tree yields 0.0 for any index, as
+	 * with {@link SummedAreaTable#getRowTotal(int)}.
+	 *
+	 * @param row the row index.
+	 *
+	 * @return The row total.
+	 */
+	public double getRowTotal(int row) {
+		if (this.columnCount == 0) {
+			return 0.0;
+		}
+		return getSum(row, 0, row, this.columnCount - 1);
+	}
+
+	/**
+	 * Returns the total of a column. An empty tree yields 0.0 for any index, as
+	 * with {@link SummedAreaTable#getColumnTotal(int)}.
+	 *
+	 * @param column the column index.
+	 *
+	 * @return The column total.
+	 */
+	public double getColumnTotal(int column) {
+		if (this.rowCount == 0) {
+			return 0.0;
+		}
+		return getSum(0, column, this.rowCount - 1, column);
+	}
+
+	/**
+	 * Rebuilds the tree from the cells in linear time, unless their
+	 * magnitudes are too large for prefix sums.
+	 */
+	private void rebuild() {
+		this.magnitude = 0.0;
+		for (double v : this.cells) {
+			this.magnitude += Math.abs(v);
+		}
+		this.stale = this.magnitude > SummedAreaTable.DIRECT_SUM_LIMIT;
+		if (this.stale) {
+			return;
+		}
+		int stride = this.columnCount + 1;
+		for (int r = 0; r < this.rowCount; r++) {
+			System.arraycopy(this.cells, r * this.columnCount, this.tree, (r + 1) * stride + 1, this.columnCount);
+		}
+		// linear-time build: push each node into its parent, columns then rows
+		for (int r = 1; r <= this.rowCount; r++) {
+			for (int c = 1; c <= this.columnCount; c++) {
+				int parent = c + (c & -c);
+				if (parent <= this.columnCount) {
+					this.tree[r * stride + parent] += this.tree[r * stride + c];
+				}
+			}
+		}
+		for (int r = 1; r <= this.rowCount; r++) {
+			int parent = r + (r & -r);
+			if (parent <= this.rowCount) {
+				for (int c = 1; c <= this.columnCount; c++) {
+					this.tree[parent * stride + c] += this.tree[r * stride + c];
+				}
+			}
+		}
+	}
+
+	/** Sum of the cells in rows [0, rows) and columns [0, columns). */
+	private double prefixSum(int rows, int columns) {
+		int stride = this.columnCount + 1;
+		double sum = 0.0;
+		for (int r = rows; r > 0; r -= r & -r) {
+			for (int c = columns; c > 0; c -= c & -c) {
+				sum += this.tree[r * stride + c];
+			}
+		}
+		return sum;
+	}
+
+	private void checkCell(int row, int column) {
+		if (row < 0 || row >= this.rowCount || column < 0 || column >= this.columnCount) {
+			throw new IndexOutOfBoundsException("Cell out of bounds: (" + row + ", " + column + ")");
+		}
+	}
+
+	private static double checkFinite(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException("Non-finite value: " + value);
+		}
+		return value;
+	}
+
+	private static Values2D checkNotNull(Values2D data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		return data;
+	}
+}
@@ -0,0 +1,167 @@
+package org.jfree.data.fast;
+
+import java.util.Arrays;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.KeyedValues;
+
+/**
+ * Parallel counterparts of {@link DataUtilities} methods for very large
+ * datasets.
+ * <p>
+ * The total is summed sequentially, in the same order as {@link DataUtilities},
+ * so both divide by the same value. The running sums are computed with a
+ * blocked fork/join prefix scan
+ * ({@link Arrays#parallelPrefix(double[], java.util.function.DoubleBinaryOperator)}),
+ * which adds the values in a different order than the sequential loop.
+ * Results therefore differ from the reference only by floating-point
+ * rounding of the running sums: for a series of {@code n} values each
+ * percentage agrees to within {@link #getTolerance(KeyedValues)}, i.e.
+ * {@code (n + 1) * ulp(1.0) * r} with {@code r = sum(|v|) / |total|}.
+ * <p>
+ * Whether a partial sum overflows depends on the summation order, and with a
+ * zero total the sign of each running sum decides between NaN and each
+ * infinity. Series whose total is zero, that contain NaN or infinite values,
+ * or where either the sum of magnitudes or {@code r} exceeds half of
+ * {@link Double#MAX_VALUE} are therefore always scanned sequentially and give
+ * exactly the reference result.
+ */
+public final class ParallelDataUtilities {
+
+	/** Below this item count the scan is done sequentially. */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+	/** Above this sum of magnitudes a reordered sum might overflow. */
+	private static final double REORDER_LIMIT = Double.MAX_VALUE / 2;
+
+	private ParallelDataUtilities() {
+	}
+
+	/**
+	 * Returns a {@link KeyedValues} instance that contains the cumulative
+	 * percentage values for the data in another {@link KeyedValues} instance,
+	 * like {@link DataUtilities#getCumulativePercentages(KeyedValues)}.
+	 * <p>
+	 * Null values are treated as zero. A zero total produces NaN or infinite
+	 * percentages and negative values are accumulated as-is, exactly as in
+	 * the sequential version.
+	 *
+	 * @param data the data (not null).
+	 *
+	 * @return The cumulative percentages, backed by a primitive array.
+	 */
+	public static DoubleKeyedValues getCumulativePercentages(KeyedValues data) {
+		return getCumulativePercentages(data, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Same as {@link #getCumulativePercentages(KeyedValues)} with an explicit
+	 * item count below which the computation stays on the calling thread.
+	 *
+	 * @param data      the data (not null).
+	 * @param threshold the minimum item count for the parallel scan.
+	 *
+	 * @return The cumulative percentages, backed by a primitive array.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static DoubleKeyedValues getCumulativePercentages(final KeyedValues data, int threshold) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		final int count = data.getItemCount();
+		boolean parallel = count >= threshold;
+		Comparable[] keys = new Comparable[count];
+		final double[] sums = new double[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = data.getKey(i);
+		}
+		if (data instanceof AbstractDoubleKeyedValues) {
+			AbstractDoubleKeyedValues source = (AbstractDoubleKeyedValues) data;
+			for (int i = 0; i < count; i++) {
+				sums[i] = source.isNull(i) ? 0.0 : source.getDoubleValue(i);
+			}
+		} else if (parallel) {
+			Arrays.parallelSetAll(sums, i -> toDouble(data.getValue(i)));
+		} else {
+			for (int i = 0; i < count; i++) {
+				sums[i] = toDouble(data.getValue(i));
+			}
+		}
+
+		// the reference divides by a total summed in item order
+		double total = 0.0;
+		for (int i = 0; i < count; i++) {
+			total += sums[i];
+		}
+		if (parallel && !canReorder(total, magnitude(sums))) {
+			parallel = false;
+		}
+		if (parallel) {
+			Arrays.parallelPrefix(sums, Double::sum);
+		} else {
+			for (int i = 1; i < count; i++) {
+				sums[i] += sums[i - 1];
+			}
+		}
+		if (count > 0) {
+			final double divisor = total;
+			if (parallel) {
+				Arrays.parallelSetAll(sums, i -> sums[i] / divisor);
+			} else {
+				for (int i = 0; i < count; i++) {
+					sums[i] = sums[i] / total;
+				}
+			}
+		}
+		return new DoubleKeyedValues(keys, sums);
+	}
+
+	/**
+	 * Returns the maximum absolute difference expected between a percentage
+	 * from this class and the one from {@link DataUtilities} for the same
+	 * data. Zero when the series is scanned sequentially, i.e. the total is
+	 * zero or not finite or a reordered sum could overflow, since the results
+	 * are then identical. The tolerance is always finite, but a total that
+	 * nearly cancels makes it large.
+	 *
+	 * @param data the data (not null).
+	 *
+	 * @return The tolerance.
+	 */
+	public static double getTolerance(KeyedValues data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		int count = data.getItemCount();
+		double[] values = new double[count];
+		double total = 0.0;
+		for (int i = 0; i < count; i++) {
+			values[i] = toDouble(data.getValue(i));
+			total += values[i];
+		}
+		double magnitude = magnitude(values);
+		if (!canReorder(total, magnitude)) {
+			return 0.0;
+		}
+		return (count + 1) * Math.ulp(1.0) * (magnitude / Math.abs(total));
+	}
+
+	/** Returns the sum of the magnitudes, NaN if any value is NaN. */
+	private static double magnitude(double[] values) {
+		return Arrays.stream(values).parallel().map(Math::abs).sum();
+	}
+
+	/**
+	 * Returns true if reordering the running sums only changes the
+	 * percentages by rounding: no partial sum can overflow, and the total is
+	 * neither zero nor so small that a percentage could overflow. False if
+	 * any value or the total is NaN or infinite.
+	 */
+	private static boolean canReorder(double total, double magnitude) {
+		return magnitude <= REORDER_LIMIT && total != 0.0 && magnitude / Math.abs(total) <= REORDER_LIMIT;
+	}
+
+	private static double toDouble(Number n) {
+		return n == null ? 0.0 : n.doubleValue();
+	}
+}
@@ -0,0 +1,298 @@
+package org.jfree.data.fast;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.Values2D;
+
+/**
+ * An immutable summed-area table over a {@link Values2D} snapshot. After an
+ * O(rows * columns) build, the sum of any rectangle of cells is answered in
+ * O(1). Null cells count as zero.
+ * <p>
+ * Full row and column totals are stored separately, accumulated in the same
+ * order as {@link DataUtilities#calculateRowTotal(Values2D, int)} and
+ * {@link DataUtilities#calculateColumnTotal(Values2D, int)}, so those queries
+ * return bit-for-bit the same result. Arbitrary rectangles are derived by
+ * inclusion-exclusion and may differ from a direct loop by rounding.
+ * <p>
+ * The prefix sums only cover finite cells. NaN and infinite cells are counted
+ * in separate prefix tables, so a rectangle that contains one is NaN or
+ * infinite as a direct loop would be, and a rectangle that does not is
+ * unaffected. If the magnitudes of the finite cells add up to more than a
+ * quarter of {@link Double#MAX_VALUE}, prefix sums could overflow; the table
+ * then keeps the cells instead and sums each rectangle directly, in row-major
+ * order.
+ * <p>
+ * Use {@link FenwickTree2D} when cells must be updated after the build.
+ */
+public class SummedAreaTable {
+
+	private final int rowCount;
+
+	private final int columnCount;
+
+	/**
+	 * Above this sum of magnitudes, a prefix sum or the combination of four
+	 * of them could overflow.
+	 */
+	static final double DIRECT_SUM_LIMIT = Double.MAX_VALUE / 4;
+
+	/**
+	 * Prefix sums of the finite cells with a zero first row and column,
+	 * (rows+1) x (cols+1), or null if the cells are summed directly.
+	 */
+	private final double[] table;
+
+	/** Prefix counts of NaN, +Inf and -Inf cells, or null if there are none. */
+	private final int[] nanCounts;
+
+	private final int[] positiveInfinityCounts;
+
+	private final int[] negativeInfinityCounts;
+
+	/** The cells in row-major order, only kept if they are summed directly. */
+	private final double[] cells;
+
+	private final double[] rowTotals;
+
+	private final double[] columnTotals;
+
+	/**
+	 * Builds a table from the current contents of the given data.
+	 *
+	 * @param data the data (not null).
+	 */
+	public SummedAreaTable(Values2D data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Null 'data' argument.");
+		}
+		this.rowCount = data.getRowCount();
+		this.columnCount = data.getColumnCount();
+		this.rowTotals = new double[this.rowCount];
+		this.columnTotals = new double[this.columnCount];
+		double[] values = new double[this.rowCount * this.columnCount];
+		double magnitude = 0.0;
+		boolean special = false;
+		for (int r = 0; r < this.rowCount; r++) {
+			double rowSum = 0.0;
+			for (int c = 0; c < this.columnCount; c++) {
+				Number n = data.getValue(r, c);
+				if (n != null) {
+					double v = n.doubleValue();
+					rowSum += v;
+					this.columnTotals[c] += v;
+					values[r * this.columnCount + c] = v;
+					if (Double.isNaN(v) || Double.isInfinite(v)) {
+						special = true;
+					} else {
+						magnitude += Math.abs(v);
+					}
+				}
+			}
+			this.rowTotals[r] = rowSum;
+		}
+		if (!(magnitude <= DIRECT_SUM_LIMIT)) {
+			this.cells = values;
+			this.table = null;
+			this.nanCounts = null;
+			this.positiveInfinityCounts = null;
+			this.negativeInfinityCounts = null;
+			return;
+		}
+		this.cells = null;
+		int stride = this.columnCount + 1;
+		int size = (this.rowCount + 1) * stride;
+		this.table = new double[size];
+		this.nanCounts = special ? new int[size] : null;
+		this.positiveInfinityCounts = special ? new int[size] : null;
+		this.negativeInfinityCounts = special ? new int[size] : null;
+		for (int r = 0; r < this.rowCount; r++) {
+			double rowSum = 0.0;
+			int rowNaN = 0;
+			int rowPositiveInfinity = 0;
+			int rowNegativeInfinity = 0;
+			for (int c = 0; c < this.columnCount; c++) {
+				double v = values[r * this.columnCount + c];
+				if (Double.isNaN(v)) {
+					rowNaN++;
+				} else if (v == Double.POSITIVE_INFINITY) {
+					rowPositiveInfinity++;
+				} else if (v == Double.NEGATIVE_INFINITY) {
+					rowNegativeInfinity++;
+				} else {
+					rowSum += v;
+				}
+				int index = (r + 1) * stride + c + 1;
+				this.table[index] = this.table[index - stride] + rowSum;
+				if (special) {
+					this.nanCounts[index] = this.nanCounts[index - stride] + rowNaN;
+					this.positiveInfinityCounts[index] = this.positiveInfinityCounts[index - stride]
+							+ rowPositiveInfinity;
+					this.negativeInfinityCounts[index] = this.negativeInfinityCounts[index - stride]
+							+ rowNegativeInfinity;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @return The row count.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 *
+	 * @return The column count.
+	 */
+	public int getColumnCount() {
+		return this.columnCount;
+	}
+
+	/**
+	 * Returns the sum of the cells in the rectangle spanning the given rows and
+	 * columns, all bounds inclusive.
+	 *
+	 * @param firstRow    the first row.
+	 * @param firstColumn the first column.
+	 * @param lastRow     the last row (&gt;= firstRow).
+	 * @param lastColumn  the last column (&gt;= firstColumn).
+	 *
+	 * @return The sum.
+	 *
+	 * @throws IndexOutOfBoundsException if the rectangle is not inside the
+	 *                                   table.
+	 */
+	public double getSum(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+		checkRange(firstRow, lastRow, this.rowCount, "row");
+		checkRange(firstColumn, lastColumn, this.columnCount, "column");
+		if (this.cells != null) {
+			return directSum(this.cells, this.columnCount, firstRow, firstColumn, lastRow, lastColumn);
+		}
+		int stride = this.columnCount + 1;
+		int a = (lastRow + 1) * stride + lastColumn + 1;
+		int b = firstRow * stride + lastColumn + 1;
+		int c = (lastRow + 1) * stride + firstColumn;
+		int d = firstRow * stride + firstColumn;
+		if (this.nanCounts != null) {
+			boolean nan = this.nanCounts[a] - this.nanCounts[b] - this.nanCounts[c] + this.nanCounts[d] > 0;
+			boolean positive = this.positiveInfinityCounts[a] - this.positiveInfinityCounts[b]
+					- this.positiveInfinityCounts[c] + this.positiveInfinityCounts[d] > 0;
+			boolean negative = this.negativeInfinityCounts[a] - this.negativeInfinityCounts[b]
+					- this.negativeInfinityCounts[c] + this.negativeInfinityCounts[d] > 0;
+			if (nan || (positive && negative)) {
+				return Double.NaN;
+			} else if (positive) {
+				return Double.POSITIVE_INFINITY;
+			} else if (negative) {
+				return Double.NEGATIVE_INFINITY;
+			}
+		}
+		return this.table[a] - this.table[b] - this.table[c] + this.table[d];
+	}
+
+	/**
+	 * Returns the sum of the given rows, across all columns.
+	 *
+	 * @param firstRow the first row.
+	 * @param lastRow  the last row (inclusive).
+	 *
+	 * @return The sum.
+	 */
+	public double getRowRangeTotal(int firstRow, int lastRow) {
+		if (this.columnCount == 0) {
+			return 0.0;
+		}
+		return getSum(firstRow, 0, lastRow, this.columnCount - 1);
+	}
+
+	/**
+	 * Returns the sum of the given columns, across all rows.
+	 *
+	 * @param firstColumn the first column.
+	 * @param lastColumn  the last column (inclusive).
+	 *
+	 * @return The sum.
+	 */
+	public double getColumnRangeTotal(int firstColumn, int lastColumn) {
+		if (this.rowCount == 0) {
+			return 0.0;
+		}
+		return getSum(0, firstColumn, this.rowCount - 1, lastColumn);
+	}
+
+	/**
+	 * Returns the total of a row, matching
+	 * {@link DataUtilities#calculateRowTotal(Values2D, int)}: an empty table
+	 * yields 0.0 for any index, otherwise an invalid index throws.
+	 *
+	 * @param row the row index.
+	 *
+	 * @return The row total.
+	 */
+	public double getRowTotal(int row) {
+		if (this.columnCount == 0) {
+			return 0.0;
+		}
+		if (row < 0 || row >= this.rowCount) {
+			throw new IndexOutOfBoundsException("Row index out of bounds: " + row);
+		}
+		return this.rowTotals[row];
+	}
+
+	/**
+	 * Returns the total of a column, matching
+	 * {@link DataUtilities#calculateColumnTotal(Values2D, int)}: an empty table
+	 * yields 0.0 for any index, otherwise an invalid index throws.
+	 *
+	 * @param column the column index.
+	 *
+	 * @return The column total.
+	 */
+	public double getColumnTotal(int column) {
+		if (this.rowCount == 0) {
+			return 0.0;
+		}
+		if (column < 0 || column >= this.columnCount) {
+			throw new IndexOutOfBoundsException("Column index out of bounds: " + column);
+		}
+		return this.columnTotals[column];
+	}
+
+	/**
+	 * Returns the sum of all cells.
+	 *
+	 * @return The total.
+	 */
+	public double getTotal() {
+		if (this.rowCount == 0 || this.columnCount == 0) {
+			return 0.0;
+		}
+		return getSum(0, 0, this.rowCount - 1, this.columnCount - 1);
+	}
+
+	/**
+	 * Sums a rectangle of a row-major array of cells in row-major order, as a
+	 * direct loop over the data would.
+	 */
+	static double directSum(double[] cells, int columnCount, int firstRow, int firstColumn, int lastRow,
+			int lastColumn) {
+		double sum = 0.0;
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				sum += cells[r * columnCount + c];
+			}
+		}
+		return sum;
+	}
+
+	static void checkRange(int first, int last, int count, String name) {
+		if (first < 0 || last >= count || first > last) {
+			throw new IndexOutOfBoundsException(
+					"Invalid " + name + " range [" + first + ", " + last + "] for count " + count);
+		}
+	}
+}
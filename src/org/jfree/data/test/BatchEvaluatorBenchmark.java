@@ -0,0 +1,93 @@
+package org.jfree.data.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.fast.BatchEvaluator;
+import org.jfree.data.fast.BatchResult;
+import org.jfree.data.fast.DatasetOperation;
+
+/**
+ * Throughput comparison between BatchEvaluator and a naive fixed thread pool
+ * that submits one task per dataset. Not a unit test; run the main method and
+ * compare the datasets-per-second figures.
+ */
+public class BatchEvaluatorBenchmark {
+
+	private static final int DATASETS = 50000;
+
+	private static final int ITEMS_PER_DATASET = 8;
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		List<KeyedValues> datasets = createDatasets(new Random(1));
+		DatasetOperation<KeyedValues, KeyedValues> operation = BatchEvaluator.cumulativePercentages();
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		BatchEvaluator evaluator = new BatchEvaluator();
+		try {
+			// warm-up
+			runNaive(executor, datasets, operation);
+			evaluator.evaluate(datasets, operation);
+
+			long naive = 0;
+			long batched = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				runNaive(executor, datasets, operation);
+				naive += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				evaluator.evaluate(datasets, operation);
+				batched += System.nanoTime() - start;
+			}
+			report("naive executor (" + threads + " threads)", naive);
+			report("BatchEvaluator", batched);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static List<KeyedValues> createDatasets(Random random) {
+		List<KeyedValues> datasets = new ArrayList<KeyedValues>(DATASETS);
+		for (int i = 0; i < DATASETS; i++) {
+			DefaultKeyedValues data = new DefaultKeyedValues();
+			for (int j = 0; j < ITEMS_PER_DATASET; j++) {
+				data.addValue("K" + j, random.nextInt(100));
+			}
+			datasets.add(data);
+		}
+		return datasets;
+	}
+
+	private static List<BatchResult<KeyedValues>> runNaive(ExecutorService executor, List<KeyedValues> datasets,
+			final DatasetOperation<KeyedValues, KeyedValues> operation) throws InterruptedException {
+		List<Future<KeyedValues>> futures = new ArrayList<Future<KeyedValues>>(datasets.size());
+		for (final KeyedValues data : datasets) {
+			futures.add(executor.submit(() -> operation.apply(data)));
+		}
+		List<BatchResult<KeyedValues>> results = new ArrayList<BatchResult<KeyedValues>>(futures.size());
+		for (Future<KeyedValues> future : futures) {
+			try {
+				results.add(BatchResult.success(future.get()));
+			} catch (ExecutionException e) {
+				results.add(BatchResult.<KeyedValues>failure(new RuntimeException(e.getCause())));
+			}
+		}
+		return results;
+	}
+
+	private static void report(String name, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.printf("%-32s %8.1f ms/round %12.0f datasets/s%n", name, nanos / 1e6 / ROUNDS,
+				DATASETS * (double) ROUNDS / seconds);
+	}
+}
@@ -0,0 +1,170 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Values2D;
+import org.jfree.data.fast.BatchEvaluator;
+import org.jfree.data.fast.BatchResult;
+import org.jfree.data.fast.DatasetOperation;
+import org.junit.Test;
+
+/**
+ * Unit tests for BatchEvaluator. Covers result ordering, per-dataset failure
+ * isolation and agreement with DataUtilities.
+ */
+public class BatchEvaluatorTest {
+
+	/**
+	 * Test that row totals are returned in input order.
+	 */
+	@Test
+	public void testEvaluateRowTotalsInOrder() {
+		List<Values2D> datasets = new ArrayList<Values2D>();
+		for (int i = 0; i < 1000; i++) {
+			DefaultKeyedValues2D data = new DefaultKeyedValues2D();
+			data.addValue(i, 0, 0);
+			data.addValue(1.0, 0, 1);
+			datasets.add(data);
+		}
+
+		List<BatchResult<Double>> results = new BatchEvaluator().evaluate(datasets, BatchEvaluator.rowTotal(0));
+
+		assertEquals("One result per dataset", 1000, results.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("Result " + i + " should match DataUtilities",
+					DataUtilities.calculateRowTotal(datasets.get(i), 0), results.get(i).getValue().doubleValue(), 0.0);
+		}
+	}
+
+	/**
+	 * Test that an out-of-bounds dataset fails alone and the rest of the batch
+	 * still completes.
+	 */
+	@Test
+	public void testEvaluateFailureIsolation() {
+		DefaultKeyedValues2D twoColumns = new DefaultKeyedValues2D();
+		twoColumns.addValue(2.0, 0, 0);
+		twoColumns.addValue(3.0, 0, 1);
+		DefaultKeyedValues2D oneColumn = new DefaultKeyedValues2D();
+		oneColumn.addValue(4.0, 0, 0);
+		List<Values2D> datasets = new ArrayList<Values2D>();
+		datasets.add(twoColumns);
+		datasets.add(oneColumn);
+		datasets.add(twoColumns);
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		List<BatchResult<Double>> results;
+		try {
+			results = new BatchEvaluator(pool, 1).evaluate(datasets, BatchEvaluator.columnTotal(1));
+		} finally {
+			pool.shutdown();
+		}
+
+		assertTrue("First dataset should succeed", results.get(0).isSuccess());
+		assertTrue("Second dataset should fail with IndexOutOfBoundsException",
+				results.get(1).getFailure() instanceof IndexOutOfBoundsException);
+		assertEquals("Third dataset should succeed", 3.0, results.get(2).getValue().doubleValue(), 0.0000001d);
+	}
+
+	/**
+	 * Test cumulative percentages over several KeyedValues.
+	 */
+	@Test
+	public void testEvaluateCumulativePercentages() {
+		List<KeyedValues> datasets = new ArrayList<KeyedValues>();
+		for (int i = 1; i <= 10; i++) {
+			DefaultKeyedValues data = new DefaultKeyedValues();
+			data.addValue("A", i);
+			data.addValue("B", 10 - i);
+			datasets.add(data);
+		}
+
+		List<BatchResult<KeyedValues>> results = new BatchEvaluator().evaluate(datasets,
+				BatchEvaluator.cumulativePercentages());
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Percentage for A in dataset " + i, (i + 1) / 10.0,
+					results.get(i).getValue().getValue("A").doubleValue(), 0.0001);
+		}
+	}
+
+	/**
+	 * Test evaluateAll with several operations: each dataset gets one result
+	 * per operation, in order, and a failing operation does not affect the
+	 * others.
+	 */
+	@Test
+	public void testEvaluateAllOperations() {
+		List<Values2D> datasets = new ArrayList<Values2D>();
+		for (int i = 0; i < 100; i++) {
+			DefaultKeyedValues2D data = new DefaultKeyedValues2D();
+			data.addValue(i, 0, 0);
+			data.addValue(2.0, 1, 0);
+			datasets.add(data);
+		}
+		List<DatasetOperation<Values2D, Double>> operations = new ArrayList<DatasetOperation<Values2D, Double>>();
+		operations.add(BatchEvaluator.rowTotal(0));
+		operations.add(BatchEvaluator.columnTotal(0));
+		operations.add(BatchEvaluator.columnTotal(1));
+
+		List<List<BatchResult<Double>>> results = new BatchEvaluator(ForkJoinPool.commonPool(), 7)
+				.evaluateAll(datasets, operations);
+
+		assertEquals("One result list per dataset", 100, results.size());
+		for (int i = 0; i < 100; i++) {
+			List<BatchResult<Double>> row = results.get(i);
+			assertEquals("One result per operation", 3, row.size());
+			assertEquals("Row total for dataset " + i, i, row.get(0).getValue().doubleValue(), 0.0);
+			assertEquals("Column total for dataset " + i, i + 2.0, row.get(1).getValue().doubleValue(), 0.0);
+			assertTrue("Missing column should fail for dataset " + i,
+					row.get(2).getFailure() instanceof IndexOutOfBoundsException);
+		}
+	}
+
+	/**
+	 * Test evaluateAll with a null operation. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEvaluateAllNullOperation() {
+		List<DatasetOperation<Values2D, Double>> operations = new ArrayList<DatasetOperation<Values2D, Double>>();
+		operations.add(null);
+		new BatchEvaluator().evaluateAll(Collections.<Values2D>emptyList(), operations);
+	}
+
+	/**
+	 * Test evaluate with no datasets.
+	 */
+	@Test
+	public void testEvaluateEmptyCollection() {
+		List<BatchResult<Double>> results = new BatchEvaluator().evaluate(Collections.<Values2D>emptyList(),
+				BatchEvaluator.rowTotal(0));
+		assertEquals("Empty input should return an empty result", 0, results.size());
+	}
+
+	/**
+	 * Test that getValue rethrows the captured failure.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetValueRethrowsFailure() {
+		BatchResult.failure(new IndexOutOfBoundsException()).getValue();
+	}
+
+	/**
+	 * Test evaluate with null datasets. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEvaluateNullDatasets() {
+		new BatchEvaluator().evaluate(null, BatchEvaluator.rowTotal(0));
+	}
+}
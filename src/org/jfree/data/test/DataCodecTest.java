@@ -0,0 +1,268 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Range;
+import org.jfree.data.fast.BufferKeyedValues;
+import org.jfree.data.fast.DataCodec;
+import org.junit.Test;
+
+/**
+ * Unit tests for DataCodec. Round-trips the RangeTest and DataUtilitiesTest
+ * fixtures and compares the encoded size with Java serialization.
+ */
+public class DataCodecTest {
+
+	// ========== Test Cases for Range ==========
+
+	/**
+	 * Test encodeRange and decodeRange on the RangeTest fixtures.
+	 */
+	@Test
+	public void testRangeRoundTrip() {
+		Range[] fixtures = { new Range(2, 8), new Range(0, 10), new Range(-5, 5), new Range(-3, 3), new Range(2, 5),
+				new Range(10, 15), new Range(3, 3), new Range(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY) };
+		ByteBuffer buffer = ByteBuffer.allocate(fixtures.length * DataCodec.RANGE_BYTES);
+		for (Range range : fixtures) {
+			DataCodec.encodeRange(range, buffer);
+		}
+		assertEquals("Each range should take 16 bytes", fixtures.length * 16, buffer.position());
+		buffer.flip();
+		for (Range range : fixtures) {
+			assertEquals("Decoded range should equal " + range, range, DataCodec.decodeRange(buffer));
+		}
+	}
+
+	/**
+	 * Test that a little-endian buffer round-trips too.
+	 */
+	@Test
+	public void testRangeRoundTripLittleEndian() {
+		ByteBuffer buffer = ByteBuffer.allocate(DataCodec.RANGE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		DataCodec.encodeRange(new Range(-1.5, 2.25), buffer);
+		buffer.flip();
+		assertEquals("Decoded range should equal (-1.5,2.25)", new Range(-1.5, 2.25), DataCodec.decodeRange(buffer));
+	}
+
+	/**
+	 * Test decodeRange on a record with flipped bounds. Expected: Should throw
+	 * IllegalArgumentException, as the Range constructor does.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeRangeFlippedBounds() {
+		ByteBuffer buffer = ByteBuffer.allocate(DataCodec.RANGE_BYTES);
+		buffer.putDouble(8.0).putDouble(2.0).flip();
+		DataCodec.decodeRange(buffer);
+	}
+
+	/**
+	 * Test encodeRange with null input. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEncodeRangeNullInput() {
+		DataCodec.encodeRange(null, ByteBuffer.allocate(DataCodec.RANGE_BYTES));
+	}
+
+	// ========== Test Cases for KeyedValues ==========
+
+	/**
+	 * Test a round trip of the DataUtilitiesTest fixtures and their cumulative
+	 * percentages.
+	 */
+	@Test
+	public void testKeyedValuesRoundTrip() {
+		DefaultKeyedValues valid = new DefaultKeyedValues();
+		valid.addValue("A", 2);
+		valid.addValue("B", 3);
+		valid.addValue("C", 5);
+		DefaultKeyedValues single = new DefaultKeyedValues();
+		single.addValue("A", 10);
+		DefaultKeyedValues negatives = new DefaultKeyedValues();
+		negatives.addValue("A", -3);
+		negatives.addValue("B", 6);
+		negatives.addValue("C", -2);
+
+		KeyedValues[] fixtures = { valid, single, negatives, new DefaultKeyedValues(),
+				DataUtilities.getCumulativePercentages(valid), DataUtilities.getCumulativePercentages(negatives) };
+		for (KeyedValues data : fixtures) {
+			assertSameKeyedValues(data, DataCodec.decodeKeyedValues(DataCodec.encodeKeyedValues(data)));
+		}
+	}
+
+	/**
+	 * Test non-string keys, a non-ASCII key and several blocks in one buffer.
+	 */
+	@Test
+	public void testKeyedValuesMixedKeysInOneBuffer() {
+		DefaultKeyedValues first = new DefaultKeyedValues();
+		first.addValue(Integer.valueOf(7), 1.5);
+		first.addValue(Long.valueOf(1L << 40), -2.5);
+		first.addValue(Double.valueOf(0.25), 3.0);
+		DefaultKeyedValues second = new DefaultKeyedValues();
+		second.addValue("caf\u00e9 \u00a9", 4.0);
+
+		ByteBuffer buffer = ByteBuffer.allocate(DataCodec.getEncodedLength(first) + DataCodec.getEncodedLength(second));
+		DataCodec.encodeKeyedValues(first, buffer);
+		DataCodec.encodeKeyedValues(second, buffer);
+		assertFalse("Encoded length should be exact", buffer.hasRemaining());
+		buffer.flip();
+
+		assertSameKeyedValues(first, DataCodec.decodeKeyedValues(buffer));
+		assertSameKeyedValues(second, DataCodec.decodeKeyedValues(buffer));
+	}
+
+	/**
+	 * Test that null values round-trip as null and stay distinct from a stored
+	 * NaN, including when a decoded instance is encoded again.
+	 */
+	@Test
+	public void testKeyedValuesNullValue() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		for (int i = 0; i < 10; i++) {
+			data.addValue("K" + i, i % 3 == 0 ? null : Double.valueOf(i));
+		}
+		data.addValue("NaN", Double.NaN);
+		BufferKeyedValues decoded = DataCodec.decodeKeyedValues(DataCodec.encodeKeyedValues(data));
+		assertNull("Null should be decoded as null", decoded.getValue("K0"));
+		assertNull("Null in the second bitmap byte should be decoded as null", decoded.getValue("K9"));
+		assertTrue("K9 should be null", decoded.isNull(9));
+		assertFalse("NaN should not be null", decoded.isNull(10));
+		assertTrue("NaN should be decoded as NaN", Double.isNaN(decoded.getValue("NaN").doubleValue()));
+		assertSameKeyedValues(data, decoded);
+		assertSameKeyedValues(data, DataCodec.decodeKeyedValues(DataCodec.encodeKeyedValues(decoded)));
+	}
+
+	/**
+	 * Test that decoded values are read from the buffer rather than copied.
+	 */
+	@Test
+	public void testDecodeKeyedValuesIsZeroCopy() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 1.0);
+		ByteBuffer buffer = DataCodec.encodeKeyedValues(data);
+		BufferKeyedValues decoded = DataCodec.decodeKeyedValues(buffer);
+		buffer.putDouble(buffer.limit() - 8, 42.0);
+		assertEquals("Decoded value should reflect the buffer", 42.0, decoded.getDoubleValue(0), 0.0);
+	}
+
+	/**
+	 * Test that the encoding is smaller than Java serialization of the same
+	 * objects. The gain is largest for small objects, where serialization
+	 * pays for class descriptors and boxed Numbers.
+	 */
+	@Test
+	public void testEncodedSizeSmallerThanSerialization() throws IOException {
+		DefaultKeyedValues small = new DefaultKeyedValues();
+		small.addValue("A", 2);
+		small.addValue("B", 3);
+		small.addValue("C", 5);
+		KeyedValues smallPercentages = DataUtilities.getCumulativePercentages(small);
+		int encodedSmall = DataCodec.getEncodedLength(smallPercentages);
+		assertTrue("Encoded fixture (" + encodedSmall + " bytes) should be at least 8x smaller",
+				encodedSmall * 8 <= serializedLength((Serializable) smallPercentages));
+
+		DefaultKeyedValues large = new DefaultKeyedValues();
+		for (int i = 0; i < 1000; i++) {
+			large.addValue("K" + i, i * 0.5);
+		}
+		KeyedValues largePercentages = DataUtilities.getCumulativePercentages(large);
+		int encodedLarge = DataCodec.getEncodedLength(largePercentages);
+		assertTrue("Encoded 1000 items (" + encodedLarge + " bytes) should be at least 2x smaller",
+				encodedLarge * 2 <= serializedLength((Serializable) largePercentages));
+
+		assertTrue("Encoded range should be at least 4x smaller",
+				DataCodec.RANGE_BYTES * 4 <= serializedLength(new Range(2, 8)));
+	}
+
+	/**
+	 * Test decoding every truncation of a valid block. Expected: Each should
+	 * throw IllegalArgumentException rather than a buffer exception.
+	 */
+	@Test
+	public void testDecodeKeyedValuesTruncated() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 1.0);
+		data.addValue(Integer.valueOf(2), null);
+		data.addValue("a longer key", 3.0);
+		ByteBuffer encoded = DataCodec.encodeKeyedValues(data);
+		for (int length = 0; length < encoded.limit(); length++) {
+			ByteBuffer truncated = encoded.duplicate();
+			truncated.limit(length);
+			try {
+				DataCodec.decodeKeyedValues(truncated);
+				fail("Decoding " + length + " bytes should throw IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Test decoding a block whose count is too large for the buffer. Expected:
+	 * Should throw IllegalArgumentException before decoding any key.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeKeyedValuesCorruptCount() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 1.0);
+		ByteBuffer encoded = DataCodec.encodeKeyedValues(data);
+		encoded.putInt(0, 1 << 20);
+		DataCodec.decodeKeyedValues(encoded);
+	}
+
+	/**
+	 * Test decoding a block whose key block length is shorter than its keys.
+	 * Expected: Should throw IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecodeKeyedValuesCorruptKeyBlockLength() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("ABCDEFGH", 1.0);
+		ByteBuffer encoded = DataCodec.encodeKeyedValues(data);
+		encoded.putInt(4, 2);
+		DataCodec.decodeKeyedValues(encoded);
+	}
+
+	/**
+	 * Test encoding a key of an unsupported type. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEncodeUnsupportedKey() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue(new java.util.Date(0), 1.0);
+		DataCodec.encodeKeyedValues(data);
+	}
+
+	private static int serializedLength(Serializable object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		return bytes.size();
+	}
+
+	private static void assertSameKeyedValues(KeyedValues expected, KeyedValues actual) {
+		assertEquals("Item count should match", expected.getItemCount(), actual.getItemCount());
+		for (int i = 0; i < expected.getItemCount(); i++) {
+			assertEquals("Key " + i + " should match", expected.getKey(i), actual.getKey(i));
+			Number value = expected.getValue(i);
+			if (value == null) {
+				assertNull("Value " + i + " should be null", actual.getValue(i));
+			} else {
+				assertEquals("Value " + i + " should match", value.doubleValue(), actual.getValue(i).doubleValue(), 0.0);
+			}
+		}
+	}
+}
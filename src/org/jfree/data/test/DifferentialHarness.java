@@ -0,0 +1,568 @@
+package org.jfree.data.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Values2D;
+import org.jfree.data.fast.ParallelDataUtilities;
+
+/**
+ * Seeded generator, property runner and shrinker used by DifferentialTest to
+ * check fast implementations against the reference DataUtilities and Range
+ * classes.
+ * <p>
+ * Test cases are kept in plain form (Double[] for KeyedValues, Double[][] for
+ * Values2D, double[4] for a pair of ranges) so that they can be shrunk and
+ * printed, and are converted to JFreeChart objects inside each property. A
+ * null element is a missing value. Every run is reproducible from the seed,
+ * which is read from the {@code differential.seed} system property and
+ * printed with every failure; {@code differential.iterations} sets the number
+ * of cases per property.
+ */
+public class DifferentialHarness {
+
+	/** Seed used when the differential.seed property is not set. */
+	public static final long DEFAULT_SEED = 438L;
+
+	/** Cases per property when the differential.iterations property is not set. */
+	public static final int DEFAULT_ITERATIONS = 500;
+
+	/** Upper bound on accepted shrink steps, to keep failing runs short. */
+	private static final int MAX_SHRINK_STEPS = 1000;
+
+	/**
+	 * Produces a random test case.
+	 */
+	public interface Generator<C> {
+		C generate(Random random);
+	}
+
+	/**
+	 * Lists strictly simpler variants of a failing test case.
+	 */
+	public interface Shrinker<C> {
+		List<C> shrink(C testCase);
+	}
+
+	/**
+	 * Checks one test case, throwing AssertionError on a mismatch.
+	 */
+	public interface Property<C> {
+		void check(C testCase);
+	}
+
+	private final long seed;
+
+	private final int iterations;
+
+	/**
+	 * Creates a harness.
+	 *
+	 * @param seed       the seed.
+	 * @param iterations the number of cases per property.
+	 */
+	public DifferentialHarness(long seed, int iterations) {
+		this.seed = seed;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Creates a harness configured from the differential.seed and
+	 * differential.iterations system properties.
+	 *
+	 * @return The harness.
+	 */
+	public static DifferentialHarness fromSystemProperties() {
+		return new DifferentialHarness(Long.getLong("differential.seed", DEFAULT_SEED).longValue(),
+				Integer.getInteger("differential.iterations", DEFAULT_ITERATIONS).intValue());
+	}
+
+	/**
+	 * Runs a property over generated cases. On the first failure the case is
+	 * shrunk and an AssertionError naming the seed, the original case and the
+	 * shrunk case is thrown.
+	 *
+	 * @param name      the property name, also mixed into the seed.
+	 * @param generator the generator.
+	 * @param shrinker  the shrinker.
+	 * @param property  the property.
+	 */
+	public <C> void forAll(String name, Generator<C> generator, Shrinker<C> shrinker, Property<C> property) {
+		Random random = new Random(this.seed * 31 + name.hashCode());
+		for (int i = 0; i < this.iterations; i++) {
+			C testCase = generator.generate(random);
+			Throwable failure = run(property, testCase);
+			if (failure == null) {
+				continue;
+			}
+			C smallest = testCase;
+			int steps = 0;
+			boolean shrunk = true;
+			while (shrunk && steps < MAX_SHRINK_STEPS) {
+				shrunk = false;
+				for (C candidate : shrinker.shrink(smallest)) {
+					Throwable candidateFailure = run(property, candidate);
+					if (candidateFailure != null) {
+						smallest = candidate;
+						failure = candidateFailure;
+						shrunk = true;
+						steps++;
+						break;
+					}
+				}
+			}
+			AssertionError error = new AssertionError(
+					name + " failed (seed " + this.seed + ", case " + i + ", -Ddifferential.seed=" + this.seed + ")"
+							+ "\n  original: " + describe(testCase) + "\n  shrunk:   " + describe(smallest)
+							+ "\n  cause:    " + failure);
+			error.initCause(failure);
+			throw error;
+		}
+	}
+
+	private static <C> Throwable run(Property<C> property, C testCase) {
+		try {
+			property.check(testCase);
+			return null;
+		} catch (AssertionError e) {
+			return e;
+		} catch (RuntimeException e) {
+			return e;
+		}
+	}
+
+	// ========== Generators ==========
+
+	/**
+	 * Returns a generator of series: empty, small and occasionally large enough
+	 * to reach parallel code paths, in one of several value profiles.
+	 *
+	 * @return The generator.
+	 */
+	public static Generator<Double[]> series() {
+		return new Generator<Double[]>() {
+			@Override
+			public Double[] generate(Random random) {
+				int size = randomSize(random, 64, PARALLEL_SIZE + random.nextInt(PARALLEL_SIZE));
+				int profile = random.nextInt(PROFILES);
+				Double[] data = new Double[size];
+				for (int i = 0; i < size; i++) {
+					data[i] = randomValue(random, profile);
+				}
+				if (profile == CANCELLING && size > 0) {
+					data[size - 1] = Double.valueOf(-sum(data, size - 1));
+				}
+				return data;
+			}
+		};
+	}
+
+	/**
+	 * Returns a generator of grids of up to 8 x 8 cells.
+	 *
+	 * @return The generator.
+	 */
+	public static Generator<Double[][]> grid() {
+		return new Generator<Double[][]>() {
+			@Override
+			public Double[][] generate(Random random) {
+				int rows = randomSize(random, 8, 8);
+				int columns = rows == 0 ? 0 : 1 + random.nextInt(8);
+				int profile = random.nextInt(PROFILES);
+				Double[][] data = new Double[rows][columns];
+				for (int r = 0; r < rows; r++) {
+					for (int c = 0; c < columns; c++) {
+						data[r][c] = randomValue(random, profile);
+					}
+					if (profile == CANCELLING) {
+						data[r][columns - 1] = Double.valueOf(-sum(data[r], columns - 1));
+					}
+				}
+				return data;
+			}
+		};
+	}
+
+	/**
+	 * Returns a generator of range pairs {lowerA, upperA, lowerB, upperB},
+	 * including flipped, degenerate, touching and infinite bounds. NaN bounds
+	 * are not generated.
+	 *
+	 * @return The generator.
+	 */
+	public static Generator<double[]> rangePairs() {
+		return new Generator<double[]>() {
+			@Override
+			public double[] generate(Random random) {
+				double[] bounds = new double[4];
+				for (int i = 0; i < 4; i++) {
+					bounds[i] = randomBound(random);
+				}
+				switch (random.nextInt(6)) {
+				case 0: // B touches A from above
+					bounds[2] = bounds[1];
+					break;
+				case 1: // B touches A from below
+					bounds[3] = bounds[0];
+					break;
+				case 2: // A is a single point
+					bounds[1] = bounds[0];
+					break;
+				case 3: // A and B are equal
+					bounds[2] = bounds[0];
+					bounds[3] = bounds[1];
+					break;
+				default:
+					break;
+				}
+				// most pairs are valid; leave some flipped
+				if (random.nextInt(8) != 0) {
+					sortPair(bounds, 0);
+					sortPair(bounds, 2);
+				}
+				return bounds;
+			}
+		};
+	}
+
+	private static final int PROFILES = 8;
+
+	/**
+	 * Mixed magnitudes, with the last value of each series or grid row set
+	 * to the negated sum of the others so that the total is exactly zero.
+	 */
+	private static final int CANCELLING = 7;
+
+	/** Large series are at least this long, so they reach the parallel scan. */
+	private static final int PARALLEL_SIZE = ParallelDataUtilities.DEFAULT_PARALLEL_THRESHOLD;
+
+	private static double randomValueFinite(Random random, int profile) {
+		switch (profile) {
+		case 0: // small integers
+			return random.nextInt(201) - 100;
+		case 1: // ordinary doubles
+			return (random.nextDouble() - 0.5) * 2000.0;
+		case 2: // huge
+			return (random.nextDouble() - 0.5) * 1e150;
+		case 3: // tiny, including subnormals
+			return (random.nextInt(2001) - 1000) * (random.nextBoolean() ? Double.MIN_VALUE : 1e-300);
+		case 6: // close to +/-Double.MAX_VALUE, so that sums overflow
+			return (random.nextDouble() - 0.5) * 2 * Double.MAX_VALUE;
+		default: // mixed magnitudes
+			return (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+		}
+	}
+
+	private static Double randomValue(Random random, int profile) {
+		int roll = random.nextInt(100);
+		if (roll < 10) {
+			return null;
+		}
+		if (profile == 5 && roll < 20) {
+			double[] specials = { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0, -0.0 };
+			return Double.valueOf(specials[random.nextInt(specials.length)]);
+		}
+		return Double.valueOf(randomValueFinite(random, profile));
+	}
+
+	/** Sums the first count non-null values in item order. */
+	private static double sum(Double[] data, int count) {
+		double sum = 0.0;
+		for (int i = 0; i < count; i++) {
+			if (data[i] != null) {
+				sum += data[i].doubleValue();
+			}
+		}
+		return sum;
+	}
+
+	private static double randomBound(Random random) {
+		switch (random.nextInt(8)) {
+		case 0:
+			return Double.NEGATIVE_INFINITY;
+		case 1:
+			return Double.POSITIVE_INFINITY;
+		case 2:
+			return (random.nextDouble() - 0.5) * 1e300;
+		case 3:
+			return (random.nextDouble() - 0.5) * 1e-300;
+		default:
+			return random.nextInt(21) - 10;
+		}
+	}
+
+	private static int randomSize(Random random, int usual, int large) {
+		int roll = random.nextInt(20);
+		if (roll == 0) {
+			return 0;
+		}
+		if (roll == 1) {
+			return large;
+		}
+		return 1 + random.nextInt(usual);
+	}
+
+	private static void sortPair(double[] bounds, int index) {
+		if (bounds[index] > bounds[index + 1]) {
+			double tmp = bounds[index];
+			bounds[index] = bounds[index + 1];
+			bounds[index + 1] = tmp;
+		}
+	}
+
+	// ========== Shrinkers ==========
+
+	/**
+	 * Returns a shrinker for series that drops halves and single elements and
+	 * simplifies values.
+	 *
+	 * @return The shrinker.
+	 */
+	public static Shrinker<Double[]> seriesShrinker() {
+		return new Shrinker<Double[]>() {
+			@Override
+			public List<Double[]> shrink(Double[] data) {
+				List<Double[]> candidates = new ArrayList<Double[]>();
+				int n = data.length;
+				if (n > 1) {
+					candidates.add(Arrays.copyOfRange(data, 0, n / 2));
+					candidates.add(Arrays.copyOfRange(data, n / 2, n));
+				}
+				for (int i = 0; i < n && n <= 64; i++) {
+					Double[] removed = new Double[n - 1];
+					System.arraycopy(data, 0, removed, 0, i);
+					System.arraycopy(data, i + 1, removed, i, n - i - 1);
+					candidates.add(removed);
+				}
+				for (int i = 0; i < n && n <= 64; i++) {
+					if (data[i] != null) {
+						for (double simpler : simplify(data[i].doubleValue())) {
+							Double[] copy = data.clone();
+							copy[i] = Double.valueOf(simpler);
+							candidates.add(copy);
+						}
+					}
+				}
+				return candidates;
+			}
+		};
+	}
+
+	/**
+	 * Returns a shrinker for grids that drops rows and columns and simplifies
+	 * values.
+	 *
+	 * @return The shrinker.
+	 */
+	public static Shrinker<Double[][]> gridShrinker() {
+		return new Shrinker<Double[][]>() {
+			@Override
+			public List<Double[][]> shrink(Double[][] data) {
+				List<Double[][]> candidates = new ArrayList<Double[][]>();
+				int rows = data.length;
+				int columns = rows == 0 ? 0 : data[0].length;
+				for (int r = 0; r < rows; r++) {
+					Double[][] removed = new Double[rows - 1][];
+					for (int i = 0, j = 0; i < rows; i++) {
+						if (i != r) {
+							removed[j++] = data[i].clone();
+						}
+					}
+					candidates.add(removed);
+				}
+				for (int c = 0; c < columns && columns > 1; c++) {
+					Double[][] removed = new Double[rows][columns - 1];
+					for (int i = 0; i < rows; i++) {
+						System.arraycopy(data[i], 0, removed[i], 0, c);
+						System.arraycopy(data[i], c + 1, removed[i], c, columns - c - 1);
+					}
+					candidates.add(removed);
+				}
+				for (int r = 0; r < rows; r++) {
+					for (int c = 0; c < columns; c++) {
+						if (data[r][c] != null) {
+							for (double simpler : simplify(data[r][c].doubleValue())) {
+								Double[][] copy = copy(data);
+								copy[r][c] = Double.valueOf(simpler);
+								candidates.add(copy);
+							}
+						}
+					}
+				}
+				return candidates;
+			}
+		};
+	}
+
+	/**
+	 * Returns a shrinker for range pairs that simplifies each bound.
+	 *
+	 * @return The shrinker.
+	 */
+	public static Shrinker<double[]> rangePairShrinker() {
+		return new Shrinker<double[]>() {
+			@Override
+			public List<double[]> shrink(double[] bounds) {
+				List<double[]> candidates = new ArrayList<double[]>();
+				for (int i = 0; i < bounds.length; i++) {
+					for (double simpler : simplify(bounds[i])) {
+						double[] copy = bounds.clone();
+						copy[i] = simpler;
+						candidates.add(copy);
+					}
+				}
+				return candidates;
+			}
+		};
+	}
+
+	/**
+	 * Returns values strictly simpler than v: zero, then the nearest integer,
+	 * then half the magnitude. Repeated application always reaches zero.
+	 */
+	private static double[] simplify(double v) {
+		if (v == 0.0) {
+			return new double[0];
+		}
+		if (Double.isNaN(v) || Double.isInfinite(v)) {
+			return new double[] { 0.0 };
+		}
+		if (v != Math.rint(v)) {
+			return new double[] { 0.0, Math.rint(v) };
+		}
+		if (Math.abs(v) > 1.0) {
+			return new double[] { 0.0, v > 0 ? Math.floor(v / 2) : Math.ceil(v / 2) };
+		}
+		return new double[] { 0.0 };
+	}
+
+	private static Double[][] copy(Double[][] data) {
+		Double[][] result = new Double[data.length][];
+		for (int i = 0; i < data.length; i++) {
+			result[i] = data[i].clone();
+		}
+		return result;
+	}
+
+	// ========== Conversion and comparison ==========
+
+	/**
+	 * Converts a series to a DefaultKeyedValues with keys "K0", "K1", ...
+	 *
+	 * @param data the series.
+	 *
+	 * @return The KeyedValues.
+	 */
+	public static KeyedValues toKeyedValues(Double[] data) {
+		DefaultKeyedValues result = new DefaultKeyedValues();
+		for (int i = 0; i < data.length; i++) {
+			result.addValue("K" + i, data[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Converts a grid to a DefaultKeyedValues2D with Integer row and column
+	 * keys. Missing cells are stored as null values so the shape is kept.
+	 *
+	 * @param data the grid.
+	 *
+	 * @return The Values2D.
+	 */
+	public static Values2D toValues2D(Double[][] data) {
+		DefaultKeyedValues2D result = new DefaultKeyedValues2D();
+		for (int r = 0; r < data.length; r++) {
+			for (int c = 0; c < data[r].length; c++) {
+				result.addValue(data[r][c], Integer.valueOf(r), Integer.valueOf(c));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the sum of the absolute values of the finite, non-null
+	 * elements.
+	 *
+	 * @param data the grid.
+	 *
+	 * @return The sum.
+	 */
+	public static double sumOfMagnitudes(Double[][] data) {
+		double sum = 0.0;
+		for (Double[] row : data) {
+			for (Double v : row) {
+				if (v != null && !v.isNaN() && !v.isInfinite()) {
+					sum += Math.abs(v.doubleValue());
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns true if every non-null element is finite.
+	 *
+	 * @param data the grid.
+	 *
+	 * @return A boolean.
+	 */
+	public static boolean isFinite(Double[][] data) {
+		for (Double[] row : data) {
+			for (Double v : row) {
+				if (v != null && (Double.isNaN(v.doubleValue()) || Double.isInfinite(v.doubleValue()))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Asserts that two doubles agree: identical (including NaN and
+	 * infinities), or finite and within the tolerance. An infinite tolerance
+	 * accepts any pair of finite values, but never a NaN or an infinity
+	 * against a different value.
+	 *
+	 * @param message   the message.
+	 * @param expected  the reference value.
+	 * @param actual    the value under test.
+	 * @param tolerance the tolerance.
+	 */
+	public static void assertClose(String message, double expected, double actual, double tolerance) {
+		if (Double.compare(expected, actual) == 0 || expected == actual) {
+			return;
+		}
+		boolean finite = !Double.isNaN(expected) && !Double.isInfinite(expected) && !Double.isNaN(actual)
+				&& !Double.isInfinite(actual);
+		if (!finite || Math.abs(expected - actual) > tolerance) {
+			throw new AssertionError(
+					message + ": expected " + expected + " but was " + actual + " (tolerance " + tolerance + ")");
+		}
+	}
+
+	/**
+	 * Returns a printable form of a test case.
+	 *
+	 * @param testCase the case.
+	 *
+	 * @return The description.
+	 */
+	public static String describe(Object testCase) {
+		if (testCase instanceof Object[][]) {
+			return Arrays.deepToString((Object[][]) testCase);
+		}
+		if (testCase instanceof Object[]) {
+			Object[] array = (Object[]) testCase;
+			return array.length > 64 ? "[" + array.length + " elements]" : Arrays.toString(array);
+		}
+		if (testCase instanceof double[]) {
+			return Arrays.toString((double[]) testCase);
+		}
+		return String.valueOf(testCase);
+	}
+}
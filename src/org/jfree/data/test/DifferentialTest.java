@@ -0,0 +1,386 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.Range;
+import org.jfree.data.Values2D;
+import org.jfree.data.fast.BatchEvaluator;
+import org.jfree.data.fast.BatchResult;
+import org.jfree.data.fast.DataCodec;
+import org.jfree.data.fast.FenwickTree2D;
+import org.jfree.data.fast.ParallelDataUtilities;
+import org.jfree.data.fast.SummedAreaTable;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Differential and property-based tests. Each fast implementation in
+ * org.jfree.data.fast is run against DataUtilities on generated datasets,
+ * DataCodec is checked for lossless round trips, and Range is checked against
+ * simple properties on generated range pairs. Run
+ * with -Ddifferential.seed=N to reproduce a reported failure.
+ */
+public class DifferentialTest {
+
+	private DifferentialHarness harness;
+
+	@Before
+	public void setUp() {
+		harness = DifferentialHarness.fromSystemProperties();
+	}
+
+	// ========== KeyedValues implementations ==========
+
+	/**
+	 * ParallelDataUtilities.getCumulativePercentages, forced onto the parallel
+	 * scan and with the default threshold.
+	 */
+	@Test
+	public void testParallelCumulativePercentages() {
+		for (final int threshold : new int[] { 0, ParallelDataUtilities.DEFAULT_PARALLEL_THRESHOLD }) {
+			harness.forAll("ParallelDataUtilities.getCumulativePercentages(threshold=" + threshold + ")",
+					DifferentialHarness.series(), DifferentialHarness.seriesShrinker(),
+					new DifferentialHarness.Property<Double[]>() {
+						@Override
+						public void check(Double[] testCase) {
+							KeyedValues data = DifferentialHarness.toKeyedValues(testCase);
+							assertSameKeyedValues(DataUtilities.getCumulativePercentages(data),
+									ParallelDataUtilities.getCumulativePercentages(data, threshold),
+									ParallelDataUtilities.getTolerance(data));
+						}
+					});
+		}
+	}
+
+	/**
+	 * DataCodec round trip of a KeyedValues block, decoded from a buffer that
+	 * does not start at position 0.
+	 */
+	@Test
+	public void testCodecKeyedValuesRoundTrip() {
+		harness.forAll("DataCodec KeyedValues round trip", DifferentialHarness.series(),
+				DifferentialHarness.seriesShrinker(), new DifferentialHarness.Property<Double[]>() {
+					@Override
+					public void check(Double[] testCase) {
+						KeyedValues data = DifferentialHarness.toKeyedValues(testCase);
+						ByteBuffer buffer = ByteBuffer.allocate(3 + DataCodec.getEncodedLength(data));
+						buffer.position(3);
+						DataCodec.encodeKeyedValues(data, buffer);
+						assertFalse("Encoded length should be exact", buffer.hasRemaining());
+						buffer.position(3);
+						KeyedValues decoded = DataCodec.decodeKeyedValues(buffer);
+						assertEquals("Item count", data.getItemCount(), decoded.getItemCount());
+						for (int i = 0; i < data.getItemCount(); i++) {
+							assertEquals("Key " + i, data.getKey(i), decoded.getKey(i));
+							assertEquals("Value " + i, data.getValue(i), decoded.getValue(i));
+						}
+					}
+				});
+	}
+
+	// ========== Values2D implementations ==========
+
+	/**
+	 * SummedAreaTable row and column totals, which must match exactly,
+	 * including out-of-bounds behaviour.
+	 */
+	@Test
+	public void testSummedAreaTableTotals() {
+		harness.forAll("SummedAreaTable totals", DifferentialHarness.grid(), DifferentialHarness.gridShrinker(),
+				new DifferentialHarness.Property<Double[][]>() {
+					@Override
+					public void check(Double[][] testCase) {
+						final Values2D data = DifferentialHarness.toValues2D(testCase);
+						final SummedAreaTable table = new SummedAreaTable(data);
+						assertTotalsMatch(data, 0.0, new TotalFunction() {
+							@Override
+							public double rowTotal(int row) {
+								return table.getRowTotal(row);
+							}
+
+							@Override
+							public double columnTotal(int column) {
+								return table.getColumnTotal(column);
+							}
+						});
+					}
+				});
+	}
+
+	/**
+	 * SummedAreaTable rectangle sums against a direct loop, including NaN,
+	 * infinite and near-overflow cells.
+	 */
+	@Test
+	public void testSummedAreaTableRectangles() {
+		harness.forAll("SummedAreaTable.getSum", DifferentialHarness.grid(), DifferentialHarness.gridShrinker(),
+				new DifferentialHarness.Property<Double[][]>() {
+					@Override
+					public void check(Double[][] testCase) {
+						SummedAreaTable table = new SummedAreaTable(DifferentialHarness.toValues2D(testCase));
+						double tolerance = rectangleTolerance(testCase);
+						int rows = testCase.length;
+						int columns = rows == 0 ? 0 : testCase[0].length;
+						for (int r0 = 0; r0 < rows; r0++) {
+							for (int r1 = r0; r1 < rows; r1++) {
+								for (int c0 = 0; c0 < columns; c0++) {
+									for (int c1 = c0; c1 < columns; c1++) {
+										double expected = 0.0;
+										for (int r = r0; r <= r1; r++) {
+											for (int c = c0; c <= c1; c++) {
+												if (testCase[r][c] != null) {
+													expected += testCase[r][c].doubleValue();
+												}
+											}
+										}
+										DifferentialHarness.assertClose(
+												"Sum (" + r0 + "," + c0 + ")-(" + r1 + "," + c1 + ")", expected,
+												table.getSum(r0, c0, r1, c1), tolerance);
+									}
+								}
+							}
+						}
+					}
+				});
+	}
+
+	/**
+	 * FenwickTree2D row and column totals. The tree only accepts finite
+	 * cells, so grids with NaN or infinite cells must be rejected.
+	 */
+	@Test
+	public void testFenwickTreeTotals() {
+		harness.forAll("FenwickTree2D totals", DifferentialHarness.grid(), DifferentialHarness.gridShrinker(),
+				new DifferentialHarness.Property<Double[][]>() {
+					@Override
+					public void check(Double[][] testCase) {
+						final Values2D data = DifferentialHarness.toValues2D(testCase);
+						if (!DifferentialHarness.isFinite(testCase)) {
+							try {
+								new FenwickTree2D(data);
+							} catch (IllegalArgumentException e) {
+								return;
+							}
+							throw new AssertionError("Non-finite cells should be rejected");
+						}
+						final FenwickTree2D tree = new FenwickTree2D(data);
+						assertTotalsMatch(data, rectangleTolerance(testCase), new TotalFunction() {
+							@Override
+							public double rowTotal(int row) {
+								return tree.getRowTotal(row);
+							}
+
+							@Override
+							public double columnTotal(int column) {
+								return tree.getColumnTotal(column);
+							}
+						});
+					}
+				});
+	}
+
+	/**
+	 * BatchEvaluator row totals, including per-dataset failures for invalid
+	 * row indices.
+	 */
+	@Test
+	public void testBatchEvaluatorRowTotals() {
+		final BatchEvaluator evaluator = new BatchEvaluator();
+		harness.forAll("BatchEvaluator.rowTotal", DifferentialHarness.grid(), DifferentialHarness.gridShrinker(),
+				new DifferentialHarness.Property<Double[][]>() {
+					@Override
+					public void check(Double[][] testCase) {
+						final Values2D data = DifferentialHarness.toValues2D(testCase);
+						for (int row = -1; row <= data.getRowCount(); row++) {
+							final int r = row;
+							List<BatchResult<Double>> results = evaluator.evaluate(Collections.nCopies(3, data),
+									BatchEvaluator.rowTotal(r));
+							for (final BatchResult<Double> result : results) {
+								assertSameOutcome("Row " + r, new DoubleSupplier() {
+									@Override
+									public double getAsDouble() {
+										return DataUtilities.calculateRowTotal(data, r);
+									}
+								}, new DoubleSupplier() {
+									@Override
+									public double getAsDouble() {
+										return result.getValue().doubleValue();
+									}
+								}, 0.0);
+							}
+						}
+					}
+				});
+	}
+
+	// ========== Range properties ==========
+
+	/**
+	 * Range construction, combine and contains on generated pairs, including
+	 * flipped, degenerate, touching and infinite bounds.
+	 */
+	@Test
+	public void testRangeProperties() {
+		harness.forAll("Range properties", DifferentialHarness.rangePairs(), DifferentialHarness.rangePairShrinker(),
+				new DifferentialHarness.Property<double[]>() {
+					@Override
+					public void check(double[] bounds) {
+						Range a = createOrCheckRejected(bounds[0], bounds[1]);
+						Range b = createOrCheckRejected(bounds[2], bounds[3]);
+						if (a == null || b == null) {
+							return;
+						}
+						Range expected = new Range(Math.min(bounds[0], bounds[2]), Math.max(bounds[1], bounds[3]));
+						assertEquals("combine(a, b)", expected, Range.combine(a, b));
+						assertEquals("combine(b, a)", expected, Range.combine(b, a));
+						assertTrue("a contains its lower bound", a.contains(bounds[0]));
+						assertTrue("a contains its upper bound", a.contains(bounds[1]));
+						assertTrue("combine(a, b) contains b", Range.combine(a, b).contains(bounds[2])
+								&& Range.combine(a, b).contains(bounds[3]));
+					}
+				});
+	}
+
+	/**
+	 * DataCodec round trip of valid ranges, and rejection of flipped records.
+	 */
+	@Test
+	public void testCodecRangeRoundTrip() {
+		harness.forAll("DataCodec Range round trip", DifferentialHarness.rangePairs(),
+				DifferentialHarness.rangePairShrinker(), new DifferentialHarness.Property<double[]>() {
+					@Override
+					public void check(double[] bounds) {
+						ByteBuffer buffer = ByteBuffer.allocate(DataCodec.RANGE_BYTES);
+						buffer.putDouble(bounds[0]).putDouble(bounds[1]).flip();
+						Range a = createOrCheckRejected(bounds[0], bounds[1]);
+						if (a == null) {
+							try {
+								DataCodec.decodeRange(buffer);
+							} catch (IllegalArgumentException e) {
+								return;
+							}
+							throw new AssertionError("Flipped record should be rejected");
+						}
+						assertEquals("Decoded record", a, DataCodec.decodeRange(buffer));
+						buffer.clear();
+						DataCodec.encodeRange(a, buffer);
+						buffer.flip();
+						assertEquals("Round trip", a, DataCodec.decodeRange(buffer));
+					}
+				});
+	}
+
+	private static Range createOrCheckRejected(double lower, double upper) {
+		if (lower <= upper) {
+			return new Range(lower, upper);
+		}
+		try {
+			new Range(lower, upper);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		throw new AssertionError("Range(" + lower + ", " + upper + ") should be rejected");
+	}
+
+	// ========== Helpers ==========
+
+	/** Row and column totals of an implementation under test. */
+	private interface TotalFunction {
+		double rowTotal(int row);
+
+		double columnTotal(int column);
+	}
+
+	private static void assertTotalsMatch(final Values2D data, double tolerance, final TotalFunction totals) {
+		for (int row = -1; row <= data.getRowCount(); row++) {
+			final int r = row;
+			assertSameOutcome("Row " + r, new DoubleSupplier() {
+				@Override
+				public double getAsDouble() {
+					return DataUtilities.calculateRowTotal(data, r);
+				}
+			}, new DoubleSupplier() {
+				@Override
+				public double getAsDouble() {
+					return totals.rowTotal(r);
+				}
+			}, tolerance);
+		}
+		for (int column = -1; column <= data.getColumnCount(); column++) {
+			final int c = column;
+			assertSameOutcome("Column " + c, new DoubleSupplier() {
+				@Override
+				public double getAsDouble() {
+					return DataUtilities.calculateColumnTotal(data, c);
+				}
+			}, new DoubleSupplier() {
+				@Override
+				public double getAsDouble() {
+					return totals.columnTotal(c);
+				}
+			}, tolerance);
+		}
+	}
+
+	/**
+	 * Asserts that both suppliers return close values, or both throw an
+	 * exception of the same kind (IndexOutOfBoundsException or other).
+	 */
+	private static void assertSameOutcome(String message, DoubleSupplier reference, DoubleSupplier actual,
+			double tolerance) {
+		double expectedValue = 0.0;
+		RuntimeException expectedFailure = null;
+		try {
+			expectedValue = reference.getAsDouble();
+		} catch (RuntimeException e) {
+			expectedFailure = e;
+		}
+		double actualValue = 0.0;
+		RuntimeException actualFailure = null;
+		try {
+			actualValue = actual.getAsDouble();
+		} catch (RuntimeException e) {
+			actualFailure = e;
+		}
+		if (expectedFailure != null || actualFailure != null) {
+			assertEquals(message + ": outcome", failureKind(expectedFailure), failureKind(actualFailure));
+			return;
+		}
+		DifferentialHarness.assertClose(message, expectedValue, actualValue, tolerance);
+	}
+
+	private static String failureKind(RuntimeException e) {
+		if (e == null) {
+			return "value";
+		}
+		return e instanceof IndexOutOfBoundsException ? "IndexOutOfBoundsException" : e.getClass().getName();
+	}
+
+	/**
+	 * Rounding bound for sums derived from prefix sums: every cell may take
+	 * part in each of the additions and subtractions. NaN and infinite cells
+	 * are left out, since they only decide between NaN and an infinity. Grids
+	 * whose magnitudes overflow (the near-MAX_VALUE profile) are summed
+	 * directly and get an infinite tolerance.
+	 */
+	private static double rectangleTolerance(Double[][] data) {
+		int cells = data.length == 0 ? 0 : data.length * data[0].length;
+		return 4 * (cells + 1) * Math.ulp(1.0) * DifferentialHarness.sumOfMagnitudes(data);
+	}
+
+	private static void assertSameKeyedValues(KeyedValues expected, KeyedValues actual, double tolerance) {
+		assertEquals("Item count", expected.getItemCount(), actual.getItemCount());
+		for (int i = 0; i < expected.getItemCount(); i++) {
+			assertEquals("Key " + i, expected.getKey(i), actual.getKey(i));
+			DifferentialHarness.assertClose("Value " + i, expected.getValue(i).doubleValue(),
+					actual.getValue(i).doubleValue(), tolerance);
+		}
+	}
+}
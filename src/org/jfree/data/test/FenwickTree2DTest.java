@@ -0,0 +1,168 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.fast.FenwickTree2D;
+import org.jfree.data.fast.SummedAreaTable;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for FenwickTree2D. Rectangle sums are compared against a
+ * SummedAreaTable over the same data, before and after point updates.
+ */
+public class FenwickTree2DTest {
+
+	private DefaultKeyedValues2D grid;
+
+	@Before
+	public void setUp() {
+		// 4 x 5 grid with values 1..20 in row-major order
+		grid = new DefaultKeyedValues2D();
+		for (int r = 0; r < 4; r++) {
+			for (int c = 0; c < 5; c++) {
+				grid.addValue(r * 5 + c + 1, r, c);
+			}
+		}
+	}
+
+	/**
+	 * Test that every rectangle sum matches the summed-area table.
+	 */
+	@Test
+	public void testGetSumMatchesSummedAreaTable() {
+		assertAllRectanglesMatch(new FenwickTree2D(grid), new SummedAreaTable(grid));
+	}
+
+	/**
+	 * Test that sums reflect a point update.
+	 */
+	@Test
+	public void testSetValueUpdatesSums() {
+		FenwickTree2D tree = new FenwickTree2D(grid);
+		tree.setValue(2, 3, -10.0);
+		grid.setValue(-10.0, 2, 3);
+		assertEquals("Updated cell should read back", -10.0, tree.getValue(2, 3), 0.0);
+		assertAllRectanglesMatch(tree, new SummedAreaTable(grid));
+	}
+
+	/**
+	 * Test add with a delta on an initially empty tree.
+	 */
+	@Test
+	public void testAddOnEmptyTree() {
+		FenwickTree2D tree = new FenwickTree2D(2, 2);
+		tree.add(1, 1, 3.0);
+		tree.add(1, 1, 2.0);
+		assertEquals("Row total should be 5.0", 5.0, tree.getRowTotal(1), 0.0000001d);
+		assertEquals("Column total should be 0.0", 0.0, tree.getColumnTotal(0), 0.0000001d);
+	}
+
+	/**
+	 * Test row and column totals on an empty dataset.
+	 */
+	@Test
+	public void testTotalsEmptyDataset() {
+		FenwickTree2D tree = new FenwickTree2D(new DefaultKeyedValues2D());
+		assertEquals("Empty dataset row total should be 0.0", 0.0, tree.getRowTotal(0), 0.0);
+		assertEquals("Empty dataset column total should be 0.0", 0.0, tree.getColumnTotal(0), 0.0);
+	}
+
+	/**
+	 * Test that setting a cell to NaN is rejected and leaves the tree
+	 * usable: the cell can be set again and every sum stays correct.
+	 */
+	@Test
+	public void testSetValueNaNThenFinite() {
+		FenwickTree2D tree = new FenwickTree2D(grid);
+		try {
+			tree.setValue(0, 0, Double.NaN);
+			fail("NaN should be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals("Rejected update should not change the cell", 1.0, tree.getValue(0, 0), 0.0);
+		tree.setValue(0, 0, 1.5);
+		grid.setValue(1.5, 0, 0);
+		assertEquals("Cell should read back", 1.5, tree.getValue(0, 0), 0.0);
+		assertEquals("Grand total should be 210.5", 210.5, tree.getSum(0, 0, 3, 4), 0.0);
+		assertAllRectanglesMatch(tree, new SummedAreaTable(grid));
+	}
+
+	/**
+	 * Test add with a delta that overflows the cell. Expected: Should throw
+	 * IllegalArgumentException and leave the cell unchanged.
+	 */
+	@Test
+	public void testAddOverflowingDelta() {
+		FenwickTree2D tree = new FenwickTree2D(grid);
+		tree.add(1, 1, Double.MAX_VALUE);
+		try {
+			tree.add(1, 1, Double.MAX_VALUE);
+			fail("Overflow to +Infinity should be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals("Cell should keep its value", Double.MAX_VALUE, tree.getValue(1, 1), 0.0);
+	}
+
+	/**
+	 * Test that sums whose prefix sums would overflow are still correct, and
+	 * that the tree recovers once the large values are removed.
+	 */
+	@Test
+	public void testSumsNearMaxValue() {
+		FenwickTree2D tree = new FenwickTree2D(grid);
+		tree.setValue(0, 0, Double.MAX_VALUE);
+		tree.setValue(0, 1, Double.MAX_VALUE);
+		tree.setValue(0, 2, -Double.MAX_VALUE);
+		assertEquals("Row 0 should overflow in row order", Double.POSITIVE_INFINITY, tree.getRowTotal(0), 0.0);
+		assertEquals("Sum of (0,1)-(0,2) should be 0.0", 0.0, tree.getSum(0, 1, 0, 2), 0.0);
+		assertEquals("Row 1 total should be 40.0", 40.0, tree.getRowTotal(1), 0.0);
+		tree.setValue(0, 0, 1.0);
+		tree.setValue(0, 1, 2.0);
+		tree.setValue(0, 2, 3.0);
+		assertAllRectanglesMatch(tree, new SummedAreaTable(grid));
+	}
+
+	/**
+	 * Test the constructor with a NaN cell. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNaNCell() {
+		grid.setValue(Double.NaN, 2, 2);
+		new FenwickTree2D(grid);
+	}
+
+	/**
+	 * Test setValue with an out-of-bounds cell.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetValueOutOfBounds() {
+		new FenwickTree2D(grid).setValue(4, 0, 1.0);
+	}
+
+	/**
+	 * Test the constructor with a negative size. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNegativeSize() {
+		new FenwickTree2D(-1, 2);
+	}
+
+	private static void assertAllRectanglesMatch(FenwickTree2D tree, SummedAreaTable table) {
+		for (int r0 = 0; r0 < table.getRowCount(); r0++) {
+			for (int r1 = r0; r1 < table.getRowCount(); r1++) {
+				for (int c0 = 0; c0 < table.getColumnCount(); c0++) {
+					for (int c1 = c0; c1 < table.getColumnCount(); c1++) {
+						assertEquals("Sum of (" + r0 + "," + c0 + ")-(" + r1 + "," + c1 + ") should match",
+								table.getSum(r0, c0, r1, c1), tree.getSum(r0, c0, r1, c1), 0.0000001d);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.DefaultKeyedValues;
+import org.jfree.data.KeyedValues;
+import org.jfree.data.fast.DataCodec;
+import org.jfree.data.fast.DoubleKeyedValues;
+import org.jfree.data.fast.ParallelDataUtilities;
+import org.junit.Test;
+
+/**
+ * Unit tests for ParallelDataUtilities.getCumulativePercentages. Covers the
+ * same partitions as DataUtilitiesTest and compares the parallel scan against
+ * DataUtilities on large series.
+ */
+public class ParallelDataUtilitiesTest {
+
+	/**
+	 * Test getCumulativePercentages with valid data.
+	 */
+	@Test
+	public void testGetCumulativePercentagesValidData() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 2);
+		data.addValue("B", 3);
+		data.addValue("C", 5);
+
+		KeyedValues result = ParallelDataUtilities.getCumulativePercentages(data);
+
+		assertEquals("Cumulative percentage for A should be 0.2", 0.2, result.getValue("A").doubleValue(), 0.0001);
+		assertEquals("Cumulative percentage for B should be 0.5", 0.5, result.getValue("B").doubleValue(), 0.0001);
+		assertEquals("Cumulative percentage for C should be 1.0", 1.0, result.getValue("C").doubleValue(), 0.0001);
+	}
+
+	/**
+	 * Test getCumulativePercentages with an empty dataset.
+	 */
+	@Test
+	public void testGetCumulativePercentagesEmptyData() {
+		KeyedValues result = ParallelDataUtilities.getCumulativePercentages(new DefaultKeyedValues());
+		assertEquals("Empty dataset should return zero length", 0, result.getItemCount());
+	}
+
+	/**
+	 * Test getCumulativePercentages with negative values.
+	 */
+	@Test
+	public void testGetCumulativePercentagesNegativeValues() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", -3);
+		data.addValue("B", 6);
+		data.addValue("C", -2);
+
+		assertMatchesReference(data, 0);
+		assertMatchesReference(data, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Test getCumulativePercentages when the values sum to zero. Both
+	 * implementations divide by zero and must agree on NaN and infinities.
+	 */
+	@Test
+	public void testGetCumulativePercentagesZeroTotal() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 0);
+		data.addValue("B", 4);
+		data.addValue("C", -4);
+
+		assertMatchesReference(data, 0);
+		assertMatchesReference(data, Integer.MAX_VALUE);
+		KeyedValues result = ParallelDataUtilities.getCumulativePercentages(data, 0);
+		assertTrue("0 / 0 should be NaN", Double.isNaN(result.getValue("A").doubleValue()));
+		assertEquals("4 / 0 should be +Infinity", Double.POSITIVE_INFINITY, result.getValue("B").doubleValue(), 0.0);
+	}
+
+	/**
+	 * Test getCumulativePercentages with a null value, which counts as zero.
+	 */
+	@Test
+	public void testGetCumulativePercentagesNullValue() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 1);
+		data.addValue("B", null);
+		data.addValue("C", 3);
+
+		KeyedValues result = ParallelDataUtilities.getCumulativePercentages(data, 0);
+		assertEquals("Null value should not change the running total", 0.25, result.getValue("B").doubleValue(),
+				0.0001);
+	}
+
+	/**
+	 * Test getCumulativePercentages on a series large enough to use the
+	 * parallel scan.
+	 */
+	@Test
+	public void testGetCumulativePercentagesLargeSeries() {
+		Random random = new Random(42);
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		for (int i = 0; i < 50000; i++) {
+			data.addValue(Integer.valueOf(i), random.nextDouble() * 200.0 - 50.0);
+		}
+		assertMatchesReference(data, 0);
+	}
+
+	/**
+	 * Test getCumulativePercentages on a large series with values near
+	 * Double.MAX_VALUE, where the running sum overflows in the sequential order
+	 * but not necessarily in a blocked one. The result must still match
+	 * exactly.
+	 */
+	@Test
+	public void testGetCumulativePercentagesOverflow() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		for (int i = 0; i < 20000; i++) {
+			data.addValue(Integer.valueOf(i), 1.0);
+		}
+		data.setValue(Integer.valueOf(0), Double.MAX_VALUE);
+		data.setValue(Integer.valueOf(15000), Double.MAX_VALUE);
+		data.setValue(Integer.valueOf(15001), -Double.MAX_VALUE);
+
+		assertEquals("Tolerance should be zero for the sequential fallback", 0.0,
+				ParallelDataUtilities.getTolerance(data), 0.0);
+		assertMatchesReference(data, 0);
+		assertMatchesReference(data, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Test getCumulativePercentages on a large series that cancels to a zero
+	 * total. Every percentage is then NaN or infinite, with the sign taken
+	 * from the running sum, so the result must match exactly.
+	 */
+	@Test
+	public void testGetCumulativePercentagesCancellingLargeSeries() {
+		Random random = new Random(7);
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		double total = 0.0;
+		for (int i = 0; i < 20000; i++) {
+			double v = random.nextDouble() * 200.0 - 100.0;
+			data.addValue(Integer.valueOf(i), v);
+			total += v;
+		}
+		data.addValue(Integer.valueOf(20000), -total);
+
+		assertEquals("Tolerance should be zero for a zero total", 0.0, ParallelDataUtilities.getTolerance(data), 0.0);
+		KeyedValues result = ParallelDataUtilities.getCumulativePercentages(data, 0);
+		assertTrue("First percentage should be infinite", Double.isInfinite(result.getValue(0).doubleValue()));
+		assertMatchesReference(data, 0);
+	}
+
+	/**
+	 * Test that a primitive-backed input gives the same result as a boxed one.
+	 */
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void testGetCumulativePercentagesPrimitiveInput() {
+		DoubleKeyedValues data = new DoubleKeyedValues(new Comparable[] { "A", "B", "C" },
+				new double[] { 2.0, 3.0, 5.0 });
+		DoubleKeyedValues result = ParallelDataUtilities.getCumulativePercentages(data, 0);
+		assertEquals("Cumulative percentage for B should be 0.5", 0.5, result.getDoubleValue(1), 0.0001);
+		assertEquals("Keys should be preserved", "C", result.getKey(2));
+	}
+
+	/**
+	 * Test that the result equals the DataUtilities result in both
+	 * directions, with the same hash code.
+	 */
+	@Test
+	public void testResultEqualsReference() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 2);
+		data.addValue("B", 3);
+		data.addValue("C", 5);
+		KeyedValues expected = DataUtilities.getCumulativePercentages(data);
+		KeyedValues actual = ParallelDataUtilities.getCumulativePercentages(data, 0);
+		assertTrue("Reference should equal the result", expected.equals(actual));
+		assertTrue("Result should equal the reference", actual.equals(expected));
+		assertEquals("Hash codes should match", expected.hashCode(), actual.hashCode());
+
+		DefaultKeyedValues withNull = new DefaultKeyedValues();
+		withNull.addValue("A", null);
+		KeyedValues decoded = DataCodec.decodeKeyedValues(DataCodec.encodeKeyedValues(withNull));
+		assertTrue("Null values should be equal", decoded.equals(withNull));
+		assertTrue("Null values should be equal in reverse", withNull.equals(decoded));
+		assertFalse("Different values should not be equal", actual.equals(data));
+	}
+
+	/**
+	 * Test that null items of a primitive-backed input count as zero, as they
+	 * do in DataUtilities.
+	 */
+	@Test
+	public void testGetCumulativePercentagesPrimitiveInputWithNulls() {
+		DefaultKeyedValues data = new DefaultKeyedValues();
+		data.addValue("A", 2);
+		data.addValue("B", null);
+		data.addValue("C", 5);
+		KeyedValues decoded = DataCodec.decodeKeyedValues(DataCodec.encodeKeyedValues(data));
+		assertMatchesReference(decoded, 0);
+		assertMatchesReference(decoded, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Test getCumulativePercentages with null input. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetCumulativePercentagesNullInput() {
+		ParallelDataUtilities.getCumulativePercentages(null);
+	}
+
+	private static void assertMatchesReference(KeyedValues data, int threshold) {
+		KeyedValues expected = DataUtilities.getCumulativePercentages(data);
+		KeyedValues actual = ParallelDataUtilities.getCumulativePercentages(data, threshold);
+		double tolerance = ParallelDataUtilities.getTolerance(data);
+		assertEquals("Item count should match", expected.getItemCount(), actual.getItemCount());
+		for (int i = 0; i < expected.getItemCount(); i++) {
+			assertEquals("Key " + i + " should match", expected.getKey(i), actual.getKey(i));
+			assertEquals("Value " + i + " should match", expected.getValue(i).doubleValue(),
+					actual.getValue(i).doubleValue(), tolerance);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package org.jfree.data.test;
+
+import static org.junit.Assert.*;
+
+import org.jfree.data.DataUtilities;
+import org.jfree.data.DefaultKeyedValues2D;
+import org.jfree.data.Values2D;
+import org.jfree.data.fast.SummedAreaTable;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for SummedAreaTable. Row and column totals are checked for exact
+ * agreement with DataUtilities on the DataUtilitiesTest fixtures; rectangle
+ * sums are checked against hand-computed values.
+ */
+public class SummedAreaTableTest {
+
+	private Values2D values2D;
+
+	private DefaultKeyedValues2D grid;
+
+	@Before
+	public void setUp() {
+		DefaultKeyedValues2D testValues = new DefaultKeyedValues2D();
+		testValues.addValue(1.0, 0, 0);
+		testValues.addValue(4.0, 1, 0);
+		values2D = testValues;
+
+		// 3 x 3 grid with values 1..9 in row-major order
+		grid = new DefaultKeyedValues2D();
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				grid.addValue(r * 3 + c + 1, r, c);
+			}
+		}
+	}
+
+	/**
+	 * Test row and column totals on the DataUtilitiesTest fixtures.
+	 */
+	@Test
+	public void testTotalsMatchDataUtilities() {
+		DefaultKeyedValues2D multi = new DefaultKeyedValues2D();
+		multi.addValue(2.0, 0, 0);
+		multi.addValue(3.0, 1, 0);
+		multi.addValue(5.0, 0, 1);
+		multi.addValue(7.0, 1, 1);
+
+		DefaultKeyedValues2D negatives = new DefaultKeyedValues2D();
+		negatives.addValue(-3.0, 0, 0);
+		negatives.addValue(-7.0, 1, 0);
+		negatives.addValue(-2.0, 0, 1);
+
+		DefaultKeyedValues2D zeros = new DefaultKeyedValues2D();
+		zeros.addValue(0.0, 0, 0);
+		zeros.addValue(5.0, 0, 1);
+		zeros.addValue(0.0, 2, 2);
+
+		Values2D[] fixtures = { values2D, grid, multi, negatives, zeros };
+		for (Values2D data : fixtures) {
+			SummedAreaTable table = new SummedAreaTable(data);
+			for (int r = 0; r < data.getRowCount(); r++) {
+				assertEquals("Row " + r + " total should match DataUtilities", DataUtilities.calculateRowTotal(data, r),
+						table.getRowTotal(r), 0.0);
+			}
+			for (int c = 0; c < data.getColumnCount(); c++) {
+				assertEquals("Column " + c + " total should match DataUtilities",
+						DataUtilities.calculateColumnTotal(data, c), table.getColumnTotal(c), 0.0);
+			}
+		}
+	}
+
+	/**
+	 * Test row and column totals on an empty dataset.
+	 */
+	@Test
+	public void testTotalsEmptyDataset() {
+		SummedAreaTable table = new SummedAreaTable(new DefaultKeyedValues2D());
+		assertEquals("Empty dataset row total should be 0.0", 0.0, table.getRowTotal(0), 0.0);
+		assertEquals("Empty dataset column total should be 0.0", 0.0, table.getColumnTotal(0), 0.0);
+		assertEquals("Empty dataset total should be 0.0", 0.0, table.getTotal(), 0.0);
+	}
+
+	/**
+	 * Test getSum with an inner rectangle.
+	 */
+	@Test
+	public void testGetSumInnerRectangle() {
+		SummedAreaTable table = new SummedAreaTable(grid);
+		assertEquals("Sum of (1,1)-(2,2) should be 28.0", 28.0, table.getSum(1, 1, 2, 2), 0.0000001d);
+	}
+
+	/**
+	 * Test getSum with a single cell.
+	 */
+	@Test
+	public void testGetSumSingleCell() {
+		SummedAreaTable table = new SummedAreaTable(grid);
+		assertEquals("Sum of (2,0)-(2,0) should be 7.0", 7.0, table.getSum(2, 0, 2, 0), 0.0000001d);
+	}
+
+	/**
+	 * Test row and column range totals and the grand total.
+	 */
+	@Test
+	public void testRangeTotals() {
+		SummedAreaTable table = new SummedAreaTable(grid);
+		assertEquals("Rows 0-1 total should be 21.0", 21.0, table.getRowRangeTotal(0, 1), 0.0000001d);
+		assertEquals("Columns 1-2 total should be 33.0", 33.0, table.getColumnRangeTotal(1, 2), 0.0000001d);
+		assertEquals("Grand total should be 45.0", 45.0, table.getTotal(), 0.0000001d);
+	}
+
+	/**
+	 * Test getSum with a NaN cell: only rectangles that contain it are NaN.
+	 */
+	@Test
+	public void testGetSumNaNCell() {
+		grid.setValue(Double.NaN, 0, 0);
+		SummedAreaTable table = new SummedAreaTable(grid);
+		assertTrue("Sum of (0,0)-(1,1) should be NaN", Double.isNaN(table.getSum(0, 0, 1, 1)));
+		assertEquals("Sum of (1,1)-(2,2) should be 28.0", 28.0, table.getSum(1, 1, 2, 2), 0.0);
+		assertEquals("Sum of (0,1)-(2,2) should be 33.0", 33.0, table.getSum(0, 1, 2, 2), 0.0);
+		assertEquals("Sum of (1,0)-(2,0) should be 11.0", 11.0, table.getSum(1, 0, 2, 0), 0.0);
+		assertTrue("Grand total should be NaN", Double.isNaN(table.getTotal()));
+	}
+
+	/**
+	 * Test getSum with infinite cells of both signs.
+	 */
+	@Test
+	public void testGetSumInfiniteCells() {
+		grid.setValue(Double.POSITIVE_INFINITY, 1, 1);
+		grid.setValue(Double.NEGATIVE_INFINITY, 2, 2);
+		SummedAreaTable table = new SummedAreaTable(grid);
+		assertEquals("Sum of (1,1)-(1,2) should be +Infinity", Double.POSITIVE_INFINITY, table.getSum(1, 1, 1, 2), 0.0);
+		assertEquals("Sum of (2,0)-(2,2) should be -Infinity", Double.NEGATIVE_INFINITY, table.getSum(2, 0, 2, 2), 0.0);
+		assertTrue("Sum of (1,1)-(2,2) should be NaN", Double.isNaN(table.getSum(1, 1, 2, 2)));
+		assertEquals("Sum of (2,0)-(2,1) should be 15.0", 15.0, table.getSum(2, 0, 2, 1), 0.0);
+		assertEquals("Sum of (0,0)-(0,2) should be 6.0", 6.0, table.getSum(0, 0, 0, 2), 0.0);
+	}
+
+	/**
+	 * Test getSum on cells whose prefix sums would overflow: each rectangle
+	 * is summed in row-major order, like a direct loop.
+	 */
+	@Test
+	public void testGetSumNearMaxValue() {
+		DefaultKeyedValues2D data = new DefaultKeyedValues2D();
+		data.addValue(Double.MAX_VALUE, 0, 0);
+		data.addValue(Double.MAX_VALUE, 0, 1);
+		data.addValue(-Double.MAX_VALUE, 0, 2);
+		data.addValue(1.0, 1, 0);
+		data.addValue(2.0, 1, 1);
+		data.addValue(3.0, 1, 2);
+		SummedAreaTable table = new SummedAreaTable(data);
+		assertEquals("Sum of row 0 should overflow", Double.POSITIVE_INFINITY, table.getSum(0, 0, 0, 2), 0.0);
+		assertEquals("Sum of (0,1)-(0,2) should be 0.0", 0.0, table.getSum(0, 1, 0, 2), 0.0);
+		assertEquals("Sum of row 1 should be 6.0", 6.0, table.getSum(1, 0, 1, 2), 0.0);
+	}
+
+	/**
+	 * Test getRowTotal with an out-of-bounds row index.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetRowTotalInvalidRowIndex() {
+		new SummedAreaTable(values2D).getRowTotal(2);
+	}
+
+	/**
+	 * Test getColumnTotal with a negative column index.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetColumnTotalNegativeColumnIndex() {
+		new SummedAreaTable(values2D).getColumnTotal(-1);
+	}
+
+	/**
+	 * Test getSum with a flipped rectangle.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetSumFlippedRectangle() {
+		new SummedAreaTable(grid).getSum(2, 0, 1, 2);
+	}
+
+	/**
+	 * Test the constructor with null input. Expected: Should throw
+	 * IllegalArgumentException.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructorNullInput() {
+		new SummedAreaTable(null);
+	}
+}